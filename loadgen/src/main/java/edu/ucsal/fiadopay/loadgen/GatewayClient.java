@@ -0,0 +1,51 @@
+package edu.ucsal.fiadopay.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+final class GatewayClient {
+
+    record Reply(int status, JsonNode body) {}
+
+    private final HttpClient http;
+    private final String base;
+    private final ObjectMapper mapper;
+
+    GatewayClient(String base, ObjectMapper mapper, Executor executor) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.mapper = mapper;
+        this.http = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    Reply post(String path, String token, String idempotencyKey, Object body) throws IOException, InterruptedException {
+        var req = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)));
+        if (token != null) req.header("Authorization", "Bearer " + token);
+        if (idempotencyKey != null) req.header("Idempotency-Key", idempotencyKey);
+        return send(req.build());
+    }
+
+    Reply get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(base + path)).GET().build());
+    }
+
+    private Reply send(HttpRequest req) throws IOException, InterruptedException {
+        HttpResponse<byte[]> resp = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+        byte[] body = resp.body();
+        JsonNode json = body == null || body.length == 0 ? MissingNode.getInstance() : mapper.readTree(body);
+        return new Reply(resp.statusCode(), json);
+    }
+}
@@ -0,0 +1,54 @@
+package edu.ucsal.fiadopay.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogramas por endpoint, em microssegundos.
+// Quem chama decide a origem da medição: a primeira requisição de cada cenário mede a partir do
+// instante em que a chegada *deveria* ter ocorrido, corrigindo a omissão coordenada.
+final class LatencyRecorder {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+
+    void record(String endpoint, long fromNanos, long toNanos) {
+        endpoint(endpoint).histogram.recordValue(
+                Math.min(HIGHEST_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(toNanos - fromNanos))));
+    }
+
+    void error(String endpoint) {
+        endpoint(endpoint).errors.increment();
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, k -> new Endpoint());
+    }
+
+    void report(PrintStream out) {
+        out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        endpoints.forEach((name, e) -> {
+            Histogram h = e.histogram.copy();
+            out.printf("%-28s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+                    h.getTotalCount(), e.errors.sum(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        });
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Endpoint {
+        final ConcurrentHistogram histogram = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,198 @@
+package edu.ucsal.fiadopay.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga em modelo aberto: as chegadas seguem uma taxa constante, independente de quanto
+// o gateway demora para responder, e cada chegada roda seu cenário numa virtual thread.
+public final class LoadGenerator {
+
+    static final String CREATE = "POST /payments";
+    static final String CREATE_RETRY = "POST /payments (retry)";
+    static final String POLL = "GET /payments/{id}";
+    static final String POLL_TIMEOUT = "GET /payments/{id} timeout";
+    static final String REFUND = "POST /refunds";
+    static final String SETTLE_FLOOD = "criação → status final (merchant em flood)";
+    static final String SETTLE_OTHERS = "criação → status final (demais merchants)";
+
+    private record Merchant(long id, String token) {}
+
+    private final Options o;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private GatewayClient client;
+    private WebhookReceiver receiver;
+
+    private LoadGenerator(Options o) {
+        this.o = o;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options o;
+        try {
+            o = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().isEmpty()) System.err.println(e.getMessage());
+            System.err.print(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        new LoadGenerator(o).run();
+    }
+
+    private void run() throws Exception {
+        try (ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+             ExecutorService scenarios = Executors.newVirtualThreadPerTaskExecutor();
+             WebhookReceiver webhooks = new WebhookReceiver(o.webhookPort(), recorder, mapper)) {
+            this.receiver = webhooks;
+            this.client = new GatewayClient(o.target(), mapper, io);
+
+            List<Merchant> merchants = setupMerchants();
+            if (o.floodShare() > 0 && merchants.size() < 2) {
+                throw new IllegalArgumentException("--flood-share precisa de --merchants 2 ou mais");
+            }
+            System.out.printf("run %s: %d merchants, %.1f pagamentos/s por %ds (seed %d)%n",
+                    o.runId(), merchants.size(), o.rate(), o.durationSec(), o.seed());
+
+            long arrivals = (long) (o.rate() * o.durationSec());
+            SplittableRandom root = new SplittableRandom(o.seed());
+            long start = System.nanoTime();
+            long maxLag = 0;
+            for (long i = 0; i < arrivals; i++) {
+                long intended = start + (long) (i * 1e9 / o.rate());
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+                maxLag = Math.max(maxLag, System.nanoTime() - intended);
+
+                long seq = i;
+                SplittableRandom rnd = root.split();
+                scenarios.execute(() -> scenario(seq, intended, rnd, merchants));
+            }
+            long loadEnd = System.nanoTime();
+
+            scenarios.shutdown();
+            scenarios.awaitTermination(o.pollTimeoutMs() + TimeUnit.SECONDS.toMillis(30), TimeUnit.MILLISECONDS);
+            long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(o.drainSec());
+            while (webhooks.pending() > 0 && System.nanoTime() < drainUntil) Thread.sleep(100);
+
+            System.out.printf("chegadas: %d em %.1fs (%.1f/s), atraso máximo do agendador: %.2f ms%n",
+                    arrivals, (loadEnd - start) / 1e9, arrivals / ((loadEnd - start) / 1e9), maxLag / 1e6);
+            System.out.printf("webhooks recebidos: %d, pagamentos sem webhook: %d%n",
+                    webhooks.received(), webhooks.pending());
+            recorder.report(System.out);
+        }
+    }
+
+    private List<Merchant> setupMerchants() throws IOException, InterruptedException {
+        String webhookUrl = "http://" + o.webhookHost() + ":" + o.webhookPort() + "/webhook";
+        List<Merchant> merchants = new ArrayList<>();
+        for (int i = 0; i < o.merchants(); i++) {
+            var created = client.post("/fiadopay/admin/merchants", null, null,
+                    Map.of("name", "loadgen-" + o.runId() + "-" + i, "webhookUrl", webhookUrl));
+            if (created.status() != 200) {
+                throw new IllegalStateException("Falha ao criar merchant: HTTP " + created.status() + " " + created.body());
+            }
+            var token = client.post("/fiadopay/auth/token", null, null, Map.of(
+                    "client_id", created.body().path("clientId").asText(),
+                    "client_secret", created.body().path("clientSecret").asText()));
+            if (token.status() != 200) {
+                throw new IllegalStateException("Falha ao obter token: HTTP " + token.status());
+            }
+            merchants.add(new Merchant(created.body().path("id").asLong(), token.body().path("access_token").asText()));
+        }
+        return merchants;
+    }
+
+    private void scenario(long seq, long intended, SplittableRandom rnd, List<Merchant> merchants) {
+        // Com --flood-share o primeiro merchant recebe essa fração das chegadas e os demais dividem o resto
+        boolean flood = o.floodShare() > 0 && rnd.nextDouble() < o.floodShare();
+        Merchant m = o.floodShare() <= 0 ? merchants.get(rnd.nextInt(merchants.size()))
+                : flood ? merchants.get(0) : merchants.get(1 + rnd.nextInt(merchants.size() - 1));
+        boolean pix = rnd.nextDouble() < o.pixRatio();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("method", pix ? "PIX" : "CARD");
+        body.put("currency", "BRL");
+        body.put("amount", BigDecimal.valueOf(1 + rnd.nextLong(o.maxAmountCents()), 2));
+        body.put("installments", pix ? 1 : 1 + rnd.nextInt(6));
+        body.put("metadataOrderId", "ORD-" + o.runId() + "-" + seq);
+        String idempotencyKey = o.runId() + "-" + seq;
+
+        String step = CREATE;
+        try {
+            var created = client.post("/fiadopay/gateway/payments", m.token(), idempotencyKey, body);
+            if (created.status() != 201) {
+                recorder.error(CREATE);
+                return;
+            }
+            // Medido desde o instante planejado da chegada, não do envio efetivo
+            recorder.record(CREATE, intended, System.nanoTime());
+            String id = created.body().path("id").asText();
+            receiver.expect(id, intended);
+
+            if (rnd.nextDouble() < o.idempotencyRetryRatio()) {
+                step = CREATE_RETRY;
+                long t = System.nanoTime();
+                var again = client.post("/fiadopay/gateway/payments", m.token(), idempotencyKey, body);
+                if (again.status() != 201 || !id.equals(again.body().path("id").asText())) {
+                    recorder.error(CREATE_RETRY);
+                } else {
+                    recorder.record(CREATE_RETRY, t, System.nanoTime());
+                }
+            }
+
+            step = POLL;
+            String status = pollUntilFinal(id);
+            if (o.floodShare() > 0 && status != null && !"PENDING".equals(status)) {
+                recorder.record(flood ? SETTLE_FLOOD : SETTLE_OTHERS, intended, System.nanoTime());
+            }
+
+            if ("APPROVED".equals(status) && rnd.nextDouble() < o.refundRatio()) {
+                step = REFUND;
+                long t = System.nanoTime();
+                var refund = client.post("/fiadopay/gateway/refunds", m.token(), null, Map.of("paymentId", id));
+                if (refund.status() / 100 != 2) {
+                    recorder.error(REFUND);
+                } else {
+                    recorder.record(REFUND, t, System.nanoTime());
+                }
+            }
+        } catch (IOException e) {
+            recorder.error(step);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String pollUntilFinal(String id) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(o.pollTimeoutMs());
+        while (true) {
+            long t = System.nanoTime();
+            var resp = client.get("/fiadopay/gateway/payments/" + id);
+            if (resp.status() != 200) {
+                recorder.error(POLL);
+                return null;
+            }
+            recorder.record(POLL, t, System.nanoTime());
+            String status = resp.body().path("status").asText();
+            if (!"PENDING".equals(status)) return status;
+            if (System.nanoTime() > deadline) {
+                recorder.error(POLL_TIMEOUT);
+                return status;
+            }
+            Thread.sleep(o.pollIntervalMs());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package edu.ucsal.fiadopay.loadgen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public record Options(
+        String target,
+        double rate,
+        int durationSec,
+        int merchants,
+        double pixRatio,
+        double idempotencyRetryRatio,
+        double refundRatio,
+        long maxAmountCents,
+        long pollIntervalMs,
+        long pollTimeoutMs,
+        String webhookHost,
+        int webhookPort,
+        int drainSec,
+        long seed,
+        String runId,
+        double floodShare
+) {
+
+    static final String USAGE = """
+            Uso: java -jar fiadopay-loadgen.jar [opções]
+              --target URL               instância do FiadoPay (http://localhost:8080)
+              --rate N                   chegadas de pagamentos por segundo, modelo aberto (50)
+              --duration S               duração da fase de carga em segundos (60)
+              --merchants N              merchants criados para o teste (5)
+              --pix-ratio R              fração de pagamentos PIX, o resto é CARD (0.5)
+              --idempotency-retry-ratio R fração de criações reenviadas com a mesma Idempotency-Key (0.1)
+              --refund-ratio R           fração dos aprovados que são estornados (0.1)
+              --max-amount-cents N       valor máximo sorteado, em centavos (90000)
+              --poll-interval-ms N       intervalo entre GET /payments/{id} (200)
+              --poll-timeout-ms N        desiste de esperar o status final após N ms (15000)
+              --webhook-host H           host anunciado na webhookUrl (localhost)
+              --webhook-port N           porta do receptor local de webhooks (9099)
+              --drain S                  espera por webhooks pendentes após a carga (15)
+              --seed N                   semente do sorteio de cenários (aleatória)
+              --run-id ID                prefixo de nomes e Idempotency-Keys (aleatório)
+              --flood-share R            fração das chegadas que vai para o primeiro merchant; mede a
+                                         liquidação dele e a dos demais em histogramas separados (0)
+
+            Latências: POST /payments, criação -> status final e criação -> webhook contam desde o instante
+            planejado da chegada (corrigidas para omissão coordenada). GET /payments/{id}, o reenvio com a
+            mesma Idempotency-Key e POST /refunds contam desde o envio de cada requisição: são passos em
+            sequência dentro do cenário, sem instante planejado próprio, e não incluem a espera atrás dos
+            passos anteriores.
+            """;
+
+    static Options parse(String[] args) {
+        Map<String, String> m = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--help") || a.equals("-h")) throw new IllegalArgumentException("");
+            if (!a.startsWith("--") || i + 1 >= args.length) throw new IllegalArgumentException("Opção inválida: " + a);
+            m.put(a.substring(2), args[++i]);
+        }
+        long seed = m.containsKey("seed") ? Long.parseLong(m.get("seed")) : System.nanoTime();
+        return new Options(
+                m.getOrDefault("target", "http://localhost:8080"),
+                Double.parseDouble(m.getOrDefault("rate", "50")),
+                Integer.parseInt(m.getOrDefault("duration", "60")),
+                Integer.parseInt(m.getOrDefault("merchants", "5")),
+                Double.parseDouble(m.getOrDefault("pix-ratio", "0.5")),
+                Double.parseDouble(m.getOrDefault("idempotency-retry-ratio", "0.1")),
+                Double.parseDouble(m.getOrDefault("refund-ratio", "0.1")),
+                Long.parseLong(m.getOrDefault("max-amount-cents", "90000")),
+                Long.parseLong(m.getOrDefault("poll-interval-ms", "200")),
+                Long.parseLong(m.getOrDefault("poll-timeout-ms", "15000")),
+                m.getOrDefault("webhook-host", "localhost"),
+                Integer.parseInt(m.getOrDefault("webhook-port", "9099")),
+                Integer.parseInt(m.getOrDefault("drain", "15")),
+                seed,
+                m.getOrDefault("run-id", Long.toHexString(seed & 0xFFFFFFFFL)),
+                Double.parseDouble(m.getOrDefault("flood-share", "0"))
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package edu.ucsal.fiadopay.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Receptor local de webhooks: mede o tempo entre a criação do pagamento (instante planejado da chegada)
+// e o primeiro webhook recebido para ele (sequence 1; o do estorno é ignorado). O webhook pode chegar
+// antes da resposta da criação ser processada, por isso os dois lados se encontram no mesmo mapa, e a
+// entrada sai dele assim que os dois lados se encontram.
+final class WebhookReceiver implements AutoCloseable {
+
+    static final String ENDPOINT = "creation -> webhook";
+
+    private record Mark(long createdAt, long webhookAt) {}
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Mark> marks = new ConcurrentHashMap<>();
+    private final LatencyRecorder recorder;
+    private final ObjectMapper mapper;
+    private final LongAdder received = new LongAdder();
+
+    WebhookReceiver(int port, LatencyRecorder recorder, ObjectMapper mapper) throws IOException {
+        this.recorder = recorder;
+        this.mapper = mapper;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/webhook", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    void expect(String paymentId, long createdAtNanos) {
+        marks.compute(paymentId, (k, m) -> {
+            if (m == null) return new Mark(createdAtNanos, 0);
+            if (m.webhookAt() != 0) {
+                recorder.record(ENDPOINT, createdAtNanos, m.webhookAt());
+                return null;
+            }
+            return m;
+        });
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        long now = System.nanoTime();
+        try {
+            byte[] body = ex.getRequestBody().readAllBytes();
+            received.increment();
+            var event = mapper.readTree(body);
+            String paymentId = event.path("paymentId").asText(null);
+            // Só o primeiro evento do pagamento: um posterior (estorno) criaria uma entrada que nunca sai do mapa
+            if (paymentId != null && event.path("sequence").asLong(1) == 1) {
+                marks.compute(paymentId, (k, m) -> {
+                    if (m == null) return new Mark(0, now);
+                    if (m.createdAt() != 0 && m.webhookAt() == 0) {
+                        recorder.record(ENDPOINT, m.createdAt(), now);
+                        return null;
+                    }
+                    return m;
+                });
+            }
+            ex.sendResponseHeaders(204, -1);
+        } finally {
+            ex.close();
+        }
+    }
+
+    long received() {
+        return received.sum();
+    }
+
+    long pending() {
+        return marks.values().stream().filter(m -> m.webhookAt() == 0).count();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+}
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Mede, numa execução real com o gerador de carga, o trabalho do Hibernate por liquidação e por GET /payments/{id}:
+# sessões, comandos JDBC, flushes, entidades no flush e entidades carregadas do banco.
+# Uso: scripts/jpa-stats.sh [jar] [pagamentos/s] [segundos]
+# Antes: mvn package e mvn -f loadgen/pom.xml package. Aceita jars de versões antigas para comparar.
+# Saída em CSV (operation,count,sessions,jdbc_statements,flushes,entities_flushed,entities_loaded), por operação.
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR=${1:-$ROOT/target/fiadopay-sim-1.0.0.jar}
+RATE=${2:-20}
+DURATION=${3:-20}
+GETS=${GETS:-200}
+PORT=${PORT:-18080}
+BASE="http://localhost:$PORT"
+LOG=$(mktemp)
+DATA=$(mktemp -d)
+
+# generate_statistics explícito, além de FIADOPAY_JPA_STATS, para valer também em jars anteriores à variável.
+# SQL em DEBUG diz qual comando saiu de qual thread; o TRACE do DefaultLoadEventListener marca cada entidade lida do banco.
+FIADOPAY_JPA_STATS=true java -jar "$JAR" --server.port="$PORT" \
+    --spring.jpa.show-sql=false --spring.jpa.properties.hibernate.generate_statistics=true \
+    --logging.level.org.hibernate.SQL=debug \
+    --logging.level.org.hibernate.event.internal.DefaultLoadEventListener=trace \
+    --fiadopay.processing-delay-ms=200 \
+    --fiadopay.archive.dir="$DATA/archive" --fiadopay.sinks.file.dir="$DATA/webhooks" >"$LOG" 2>&1 &
+pid=$!
+trap 'kill $pid 2>/dev/null || true; rm -rf "$LOG" "$DATA"' EXIT
+until curl -sf "$BASE/fiadopay/health" >/dev/null; do sleep 0.1; done
+
+# Sem estornos nem reenvios: toda sessão nas threads pay- é de liquidação
+java -jar "$ROOT/loadgen/target/fiadopay-loadgen-1.0.0.jar" --target "$BASE" --rate "$RATE" --duration "$DURATION" \
+    --merchants 3 --refund-ratio 0 --idempotency-retry-ratio 0 --drain 5 >&2
+
+# GET isolado: pagamentos já liquidados, relidos até somar GETS leituras
+merchant=$(curl -sf -X POST "$BASE/fiadopay/admin/merchants" -H "Content-Type: application/json" \
+    -d '{"name":"jpa-stats","webhookUrl":"queue://jpa-stats"}')
+merchant_id=$(sed -n 's/.*"id":\([0-9]*\).*/\1/p' <<<"$merchant")
+ids=()
+for i in $(seq 1 20); do
+  payment=$(curl -sf -X POST "$BASE/fiadopay/gateway/payments" -H "Authorization: Bearer FAKE-$merchant_id" \
+      -H "Content-Type: application/json" -d '{"method":"PIX","currency":"BRL","amount":10.00}')
+  ids+=("$(sed -n 's/.*"id":"\([^"]*\)".*/\1/p' <<<"$payment")")
+done
+sleep 5
+get_from=$(wc -l <"$LOG")
+for i in $(seq 0 $((GETS - 1))); do
+  curl -sf -o /dev/null "$BASE/fiadopay/gateway/payments/${ids[$((i % ${#ids[@]}))]}"
+done
+sleep 1
+get_to=$(wc -l <"$LOG")
+kill "$pid" && wait "$pid" 2>/dev/null || true
+
+awk -v from="$get_from" -v to="$get_to" -v gets="$GETS" '
+  match($0, /--- \[ *[^]]*\]/) {
+    thread = substr($0, RSTART + 5, RLENGTH - 6); sub(/^ +/, "", thread)
+    kind = ""
+    if (thread ~ /^pay-/) kind = "settlement"
+    else if (thread ~ /-exec-/ && NR > from && NR <= to) kind = "get"
+  }
+  /Session Metrics/ { cur = kind; if (cur != "") sessions[cur]++; next }
+  cur != "" && match($0, /executing [0-9]+ JDBC statements/) { split(substr($0, RSTART, RLENGTH), f, " "); statements[cur] += f[2] }
+  cur != "" && match($0, /executing [0-9]+ flushes \(flushing a total of [0-9]+ entities/) {
+    split(substr($0, RSTART, RLENGTH), f, " "); flushes[cur] += f[2]; entities[cur] += f[8]
+  }
+  /^}/ { cur = "" }
+  kind == "settlement" && /org\.hibernate\.SQL/ && /update payment/ { count["settlement"]++ }
+  kind != "" && /Object not resolved in any cache/ { loads[kind]++ }
+  END {
+    count["get"] = gets
+    print "operation,count,sessions,jdbc_statements,flushes,entities_flushed,entities_loaded"
+    split("settlement get", ops, " ")
+    for (i = 1; i <= 2; i++) {
+      op = ops[i]; n = count[op] > 0 ? count[op] : 1
+      printf "%s,%d,%.2f,%.2f,%.2f,%.2f,%.2f\n", op, count[op], sessions[op] / n, statements[op] / n,
+             flushes[op] / n, entities[op] / n, loads[op] / n
+    }
+  }' "$LOG"
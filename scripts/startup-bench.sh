@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Mede o tempo entre o start da JVM e o primeiro pagamento APPROVED.
+# Uso: scripts/startup-bench.sh [faststart|default] [execucoes]
+# Antes: mvn -Pfaststart package (faststart) ou mvn package (default)
+# Saída em CSV (mode,run,ready_ms,first_payment_ms) para acompanhar release a release.
+set -euo pipefail
+
+MODE=${1:-faststart}
+RUNS=${2:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BASE="http://localhost:$PORT"
+
+if [ "$MODE" = "faststart" ]; then
+  DIR="$ROOT/target/faststart"
+  JAVA_OPTS="-XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=faststart"
+else
+  DIR="$ROOT/target"
+  JAVA_OPTS=""
+fi
+JAR=$(cd "$DIR" && ls fiadopay-sim-*.jar | head -n 1)
+
+now_ms() { date +%s%3N; }
+
+echo "mode,run,ready_ms,first_payment_ms"
+for run in $(seq 1 "$RUNS"); do
+  start=$(now_ms)
+  # Sem atraso nem falhas simuladas: o que se mede é a inicialização, não o simulador
+  (cd "$DIR" && exec java $JAVA_OPTS -jar "$JAR" --server.port="$PORT" \
+      --fiadopay.processing-delay-ms=0 --fiadopay.failure-rate=0 >/dev/null 2>&1) &
+  pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+
+  until curl -sf "$BASE/fiadopay/health" >/dev/null; do sleep 0.01; done
+  ready=$(now_ms)
+
+  merchant=$(curl -sf -X POST "$BASE/fiadopay/admin/merchants" -H "Content-Type: application/json" \
+    -d "{\"name\":\"bench-$run\",\"webhookUrl\":\"queue://bench\"}")
+  client_id=$(sed -n 's/.*"clientId":"\([^"]*\)".*/\1/p' <<<"$merchant")
+  client_secret=$(sed -n 's/.*"clientSecret":"\([^"]*\)".*/\1/p' <<<"$merchant")
+  token=$(curl -sf -X POST "$BASE/fiadopay/auth/token" -H "Content-Type: application/json" \
+    -d "{\"client_id\":\"$client_id\",\"client_secret\":\"$client_secret\"}" \
+    | sed -n 's/.*"access_token":"\([^"]*\)".*/\1/p')
+  payment=$(curl -sf -X POST "$BASE/fiadopay/gateway/payments" -H "Authorization: Bearer $token" \
+    -H "Content-Type: application/json" -d '{"method":"PIX","currency":"BRL","amount":10.00}')
+  payment_id=$(sed -n 's/.*"id":"\([^"]*\)".*/\1/p' <<<"$payment")
+
+  until curl -sf "$BASE/fiadopay/gateway/payments/$payment_id" | grep -q '"status":"APPROVED"'; do sleep 0.005; done
+  done_at=$(now_ms)
+
+  echo "$MODE,$run,$((ready - start)),$((done_at - start))"
+  kill "$pid" && wait "$pid" 2>/dev/null || true
+  trap - EXIT
+done
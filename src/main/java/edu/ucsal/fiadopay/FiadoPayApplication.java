@@ -2,8 +2,10 @@ package edu.ucsal.fiadopay;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class FiadoPayApplication {
     public static void main(String[] args) {
         SpringApplication.run(FiadoPayApplication.class, args);
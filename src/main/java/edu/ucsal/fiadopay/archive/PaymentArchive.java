@@ -0,0 +1,174 @@
+package edu.ucsal.fiadopay.archive;
+
+import edu.ucsal.fiadopay.config.ArchiveProperties;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Camada fria: segmentos particionados por dia de criação (dir/aaaa/mm/dd/seg-<gravadoEm>-<primeiroId>.fpa).
+// O índice esparso de todos os segmentos fica em memória; uma busca abre no máximo um bloco por segmento candidato.
+// Cada rodada do arquivador cria segmentos pequenos; compact() junta os de um dia fechado num só.
+@Component
+public class PaymentArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentArchive.class);
+    private static final Comparator<Segment> NEWEST_FIRST = Comparator.comparingLong((Segment s) -> s.writtenAt).reversed();
+
+    private final ArchiveProperties props;
+    private volatile Index index = Index.of(List.of());
+
+    public PaymentArchive(ArchiveProperties props) {
+        this.props = props;
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        if (!Files.isDirectory(props.dir())) return;
+        var found = new ArrayList<Segment>();
+        try (var files = Files.walk(props.dir())) {
+            for (Path f : files.filter(f -> f.getFileName().toString().endsWith(Segment.SUFFIX)).toList()) {
+                try {
+                    found.add(Segment.open(f));
+                } catch (IOException e) {
+                    log.warn("Ignorando segmento ilegível {}", f, e);
+                }
+            }
+        }
+        index = Index.of(found);
+        log.info("Arquivo de pagamentos: {} segmentos em {}", found.size(), props.dir());
+    }
+
+    public Optional<Payment> find(String id) {
+        var current = index;
+        try {
+            for (Segment s : current.candidates(id)) {
+                var p = s.find(id);
+                if (p.isPresent()) return p;
+            }
+            return Optional.empty();
+        } catch (NoSuchFileException e) {
+            // compact() apagou o segmento depois que pegamos o índice; o mesclado já está publicado
+            if (current != index) return find(id);
+            throw new UncheckedIOException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // rows ordenados por id; grava um segmento por dia de criação
+    public synchronized void append(List<Payment> rows, Map<String, List<WebhookDelivery>> deliveries) throws IOException {
+        var byDay = new TreeMap<LocalDate, List<Payment>>();
+        for (Payment p : rows) {
+            byDay.computeIfAbsent(LocalDate.ofInstant(p.getCreatedAt(), ZoneOffset.UTC), d -> new ArrayList<>()).add(p);
+        }
+        var next = new ArrayList<>(index.segments());
+        for (var e : byDay.entrySet()) {
+            next.add(Segment.write(segmentFile(e.getKey(), e.getValue().get(0).getId()), e.getValue(), deliveries,
+                    props.blockRows()));
+        }
+        index = Index.of(next);
+    }
+
+    // Junta os segmentos de cada dia anterior a closedBefore num só e apaga os originais.
+    // Um dia já compactado só é regravado se ganhar outro segmento (um pagamento antigo estornado e rearquivado).
+    // Se o processo cair entre gravar o mesclado e apagar os originais, o mesclado é o mais recente e prevalece.
+    public synchronized int compact(LocalDate closedBefore) throws IOException {
+        var byDay = new TreeMap<LocalDate, List<Segment>>();
+        for (Segment s : index.segments()) {
+            LocalDate day = dayOf(s);
+            if (day != null && day.isBefore(closedBefore)) byDay.computeIfAbsent(day, d -> new ArrayList<>()).add(s);
+        }
+        int merged = 0, days = 0;
+        for (var e : byDay.entrySet()) {
+            var sources = e.getValue();
+            if (sources.size() < 2) continue;
+            sources.sort(NEWEST_FIRST);
+            var target = Segment.merge(segmentFile(e.getKey(), sources.stream().map(Segment::firstId)
+                    .min(Comparator.naturalOrder()).orElseThrow()), sources, props.blockRows());
+            var next = new ArrayList<>(index.segments());
+            next.removeAll(sources);
+            next.add(target);
+            index = Index.of(next);
+            for (Segment s : sources) Files.deleteIfExists(s.path);
+            merged += sources.size();
+            days++;
+        }
+        if (merged > 0) log.info("Compactados {} segmentos em {} dias", merged, days);
+        return merged;
+    }
+
+    private Path segmentFile(LocalDate day, String firstId) {
+        Path dir = props.dir().resolve(String.format("%04d/%02d/%02d", day.getYear(), day.getMonthValue(), day.getDayOfMonth()));
+        return dir.resolve("seg-" + System.currentTimeMillis() + "-" + firstId + Segment.SUFFIX);
+    }
+
+    // dir/aaaa/mm/dd/arquivo; null se o segmento estiver fora desse layout
+    private LocalDate dayOf(Segment s) {
+        Path rel = props.dir().relativize(s.path.getParent());
+        if (rel.getNameCount() != 3) return null;
+        try {
+            return LocalDate.of(Integer.parseInt(rel.getName(0).toString()),
+                    Integer.parseInt(rel.getName(1).toString()), Integer.parseInt(rel.getName(2).toString()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Segmentos ordenados pelo primeiro id, com o maior último id de cada prefixo: os candidatos a um id
+    // são achados por busca binária e uma varredura para trás que para assim que nenhum intervalo anterior
+    // pode alcançá-lo. Com os dias compactados os intervalos quase não se sobrepõem e sobra um candidato.
+    private record Index(Segment[] byFirstId, String[] maxLastId) {
+
+        static Index of(List<Segment> segments) {
+            var sorted = segments.stream().sorted(Comparator.comparing(Segment::firstId)).toArray(Segment[]::new);
+            var maxLast = new String[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                String last = sorted[i].lastId();
+                maxLast[i] = i > 0 && maxLast[i - 1].compareTo(last) > 0 ? maxLast[i - 1] : last;
+            }
+            return new Index(sorted, maxLast);
+        }
+
+        List<Segment> segments() {
+            return Arrays.asList(byFirstId);
+        }
+
+        // Mais recente primeiro: se um pagamento foi arquivado duas vezes, vale a última cópia
+        List<Segment> candidates(String id) {
+            int lo = 0, hi = byFirstId.length - 1, pos = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (byFirstId[mid].firstId().compareTo(id) <= 0) {
+                    pos = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            var out = new ArrayList<Segment>(1);
+            for (int i = pos; i >= 0 && maxLastId[i].compareTo(id) >= 0; i--) {
+                if (byFirstId[i].mayContain(id)) out.add(byFirstId[i]);
+            }
+            if (out.size() > 1) out.sort(NEWEST_FIRST);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package edu.ucsal.fiadopay.archive;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Arquivo de segmento imutável:
+//   MAGIC, VERSION
+//   blocos: [tamanho cru][tamanho comprimido][bytes deflate]   (pagamentos ordenados por id)
+//   rodapé: writtenAt, n blocos, por bloco [offset][primeiro id]   (índice esparso)
+//   [offset do rodapé][MAGIC]
+// Uma busca lê só o rodapé (em memória desde o boot) e um bloco.
+final class Segment {
+
+    static final String SUFFIX = ".fpa";
+    private static final int MAGIC = 0x46504153; // "FPAS"
+    private static final int VERSION = 1;
+
+    final Path path;
+    final long writtenAt;
+    private final long[] blockOffsets;
+    private final String[] blockFirstIds;
+    private final String lastId;
+
+    private Segment(Path path, long writtenAt, long[] blockOffsets, String[] blockFirstIds, String lastId) {
+        this.path = path;
+        this.writtenAt = writtenAt;
+        this.blockOffsets = blockOffsets;
+        this.blockFirstIds = blockFirstIds;
+        this.lastId = lastId;
+    }
+
+    // rows já ordenados por id; grava em .tmp e renomeia, então um segmento visível está sempre completo
+    static Segment write(Path target, List<Payment> rows, Map<String, List<WebhookDelivery>> deliveries,
+                         int blockRows) throws IOException {
+        try (var w = new Writer(target)) {
+            for (int from = 0; from < rows.size(); from += blockRows) {
+                w.block(rows.subList(from, Math.min(rows.size(), from + blockRows)), deliveries);
+            }
+            return w.commit();
+        }
+    }
+
+    // Intercala segmentos (mais recente primeiro) num só, bloco a bloco: memória de um bloco por segmento.
+    // Se um id aparece em mais de um, fica a cópia do mais recente, como na busca.
+    static Segment merge(Path target, List<Segment> newestFirst, int blockRows) throws IOException {
+        var heads = new PriorityQueue<Cursor>(Comparator.comparing((Cursor c) -> c.current().getId())
+                .thenComparingInt(c -> c.rank));
+        for (int i = 0; i < newestFirst.size(); i++) {
+            var c = new Cursor(newestFirst.get(i), i);
+            if (c.advance()) heads.add(c);
+        }
+        try (var w = new Writer(target)) {
+            var rows = new ArrayList<Payment>(blockRows);
+            var deliveries = new HashMap<String, List<WebhookDelivery>>();
+            while (!heads.isEmpty()) {
+                var c = heads.poll();
+                Payment p = c.current();
+                rows.add(p);
+                deliveries.put(p.getId(), c.deliveries.getOrDefault(p.getId(), List.of()));
+                if (c.advance()) heads.add(c);
+                while (!heads.isEmpty() && heads.peek().current().getId().equals(p.getId())) {
+                    var older = heads.poll();
+                    if (older.advance()) heads.add(older);
+                }
+                if (rows.size() == blockRows) {
+                    w.block(rows, deliveries);
+                    rows.clear();
+                    deliveries.clear();
+                }
+            }
+            if (!rows.isEmpty()) w.block(rows, deliveries);
+            return w.commit();
+        }
+    }
+
+    static Segment open(Path path) throws IOException {
+        try (var ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            var trailer = ByteBuffer.allocate(12);
+            ch.read(trailer, size - 12);
+            trailer.flip();
+            long footerAt = trailer.getLong();
+            if (trailer.getInt() != MAGIC) throw new IOException("Not an archive segment: " + path);
+
+            var footer = ByteBuffer.allocate((int) (size - 12 - footerAt));
+            ch.read(footer, footerAt);
+            var in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+            long writtenAt = in.readLong();
+            int blocks = in.readInt();
+            long[] offsets = new long[blocks];
+            String[] firstIds = new String[blocks];
+            for (int b = 0; b < blocks; b++) {
+                offsets[b] = in.readLong();
+                firstIds[b] = in.readUTF();
+            }
+            return new Segment(path, writtenAt, offsets, firstIds, in.readUTF());
+        }
+    }
+
+    boolean mayContain(String id) {
+        return blockFirstIds.length > 0 && id.compareTo(blockFirstIds[0]) >= 0 && id.compareTo(lastId) <= 0;
+    }
+
+    String firstId() {
+        return blockFirstIds[0];
+    }
+
+    String lastId() {
+        return lastId;
+    }
+
+    Optional<Payment> find(String id) throws IOException {
+        if (!mayContain(id)) return Optional.empty();
+        int b = Arrays.binarySearch(blockFirstIds, id);
+        if (b < 0) b = -b - 2; // último bloco que começa antes do id
+        for (Payment p : SegmentBlock.decodePayments(readBlock(b))) {
+            if (p.getId().equals(id)) return Optional.of(p);
+        }
+        return Optional.empty();
+    }
+
+    private byte[] readBlock(int b) throws IOException {
+        try (var ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(8);
+            ch.read(header, blockOffsets[b]);
+            header.flip();
+            int rawLen = header.getInt();
+            var packed = ByteBuffer.allocate(header.getInt());
+            while (packed.hasRemaining()) {
+                if (ch.read(packed, blockOffsets[b] + 8 + packed.position()) < 0) {
+                    throw new IOException("Truncated block in " + path);
+                }
+            }
+            return inflate(packed.array(), rawLen);
+        }
+    }
+
+    // Grava blocos em sequência num .tmp; commit() escreve o rodapé e renomeia. Sem commit, o .tmp é apagado.
+    private static final class Writer implements AutoCloseable {
+        private final Path target;
+        private final Path tmp;
+        private final DataOutputStream out;
+        private final Deflater deflater = new Deflater();
+        private final List<Long> offsets = new ArrayList<>();
+        private final List<String> firstIds = new ArrayList<>();
+        private String lastId;
+        private long pos;
+        private boolean committed;
+
+        Writer(Path target) throws IOException {
+            Files.createDirectories(target.getParent());
+            this.target = target;
+            this.tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            pos = 8;
+        }
+
+        void block(List<Payment> rows, Map<String, List<WebhookDelivery>> deliveries) throws IOException {
+            byte[] raw = SegmentBlock.encode(rows, deliveries);
+            byte[] packed = deflate(deflater, raw);
+            offsets.add(pos);
+            firstIds.add(rows.get(0).getId());
+            lastId = rows.get(rows.size() - 1).getId();
+            out.writeInt(raw.length);
+            out.writeInt(packed.length);
+            out.write(packed);
+            pos += 8 + packed.length;
+        }
+
+        Segment commit() throws IOException {
+            long writtenAt = System.currentTimeMillis();
+            out.writeLong(writtenAt);
+            out.writeInt(offsets.size());
+            for (int b = 0; b < offsets.size(); b++) {
+                out.writeLong(offsets.get(b));
+                out.writeUTF(firstIds.get(b));
+            }
+            out.writeUTF(lastId);
+            out.writeLong(pos);
+            out.writeInt(MAGIC);
+            out.close();
+            try (var ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return new Segment(target, writtenAt, offsets.stream().mapToLong(Long::longValue).toArray(),
+                    firstIds.toArray(String[]::new), lastId);
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            if (committed) return;
+            out.close();
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Percorre um segmento em ordem de id, um bloco descomprimido por vez
+    private static final class Cursor {
+        private final Segment segment;
+        private final int rank;
+        private int block = -1;
+        private List<Payment> rows = List.of();
+        private final Map<String, List<WebhookDelivery>> deliveries = new HashMap<>();
+        private int pos;
+
+        Cursor(Segment segment, int rank) {
+            this.segment = segment;
+            this.rank = rank;
+        }
+
+        Payment current() {
+            return rows.get(pos);
+        }
+
+        boolean advance() throws IOException {
+            if (++pos < rows.size()) return true;
+            if (++block >= segment.blockOffsets.length) return false;
+            deliveries.clear();
+            rows = SegmentBlock.decode(segment.readBlock(block), deliveries);
+            pos = 0;
+            return !rows.isEmpty();
+        }
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        var out = new ByteArrayOutputStream(raw.length / 3 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] inflate(byte[] packed, int rawLen) throws IOException {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(packed);
+            byte[] raw = new byte[rawLen];
+            int n = 0;
+            while (n < rawLen && !inflater.finished()) {
+                n += inflater.inflate(raw, n, rawLen - n);
+            }
+            if (n != rawLen) throw new IOException("Corrupt block in " + path);
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block in " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
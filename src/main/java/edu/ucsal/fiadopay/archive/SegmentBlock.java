@@ -0,0 +1,146 @@
+package edu.ucsal.fiadopay.archive;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Um bloco guarda até block-rows pagamentos, coluna a coluna (todos os ids, depois todos os merchantIds, ...),
+// seguidos das entregas de webhook desses pagamentos. Valores parecidos ficam juntos e comprimem melhor.
+final class SegmentBlock {
+
+    private SegmentBlock() { }
+
+    static byte[] encode(List<Payment> rows, Map<String, List<WebhookDelivery>> deliveries) throws IOException {
+        var buf = new ByteArrayOutputStream(rows.size() * 160);
+        var out = new DataOutputStream(buf);
+        out.writeInt(rows.size());
+        for (Payment p : rows) out.writeUTF(p.getId());
+        for (Payment p : rows) out.writeLong(p.getMerchantId());
+        for (Payment p : rows) out.writeUTF(p.getMethod());
+        for (Payment p : rows) out.writeLong(p.getAmountMinor());
+        for (Payment p : rows) out.writeUTF(p.getCurrency());
+        for (Payment p : rows) out.writeInt(p.getInstallments());
+        for (Payment p : rows) {
+            out.writeBoolean(p.getMonthlyInterest() != null);
+            if (p.getMonthlyInterest() != null) out.writeDouble(p.getMonthlyInterest());
+        }
+        for (Payment p : rows) out.writeLong(p.getTotalWithInterestMinor());
+        for (Payment p : rows) out.writeUTF(p.getStatus().name());
+        for (Payment p : rows) writeInstant(out, p.getCreatedAt());
+        for (Payment p : rows) writeInstant(out, p.getUpdatedAt());
+        for (Payment p : rows) writeNullable(out, p.getIdempotencyKey());
+        for (Payment p : rows) writeNullable(out, p.getMetadataOrderId());
+
+        List<WebhookDelivery> ds = new ArrayList<>();
+        List<Integer> owner = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            for (WebhookDelivery d : deliveries.getOrDefault(rows.get(i).getId(), List.of())) {
+                ds.add(d);
+                owner.add(i);
+            }
+        }
+        out.writeInt(ds.size());
+        for (int i : owner) out.writeInt(i);
+        for (WebhookDelivery d : ds) out.writeUTF(d.getEventId());
+        for (WebhookDelivery d : ds) out.writeUTF(d.getEventType());
+        for (WebhookDelivery d : ds) out.writeLong(d.getSequence());
+        for (WebhookDelivery d : ds) writeNullableInstant(out, d.getOccurredAt());
+        for (WebhookDelivery d : ds) writeNullable(out, d.getTargetUrl());
+        for (WebhookDelivery d : ds) writeNullable(out, d.getSignature());
+        for (WebhookDelivery d : ds) out.writeInt(d.getAttempts());
+        for (WebhookDelivery d : ds) writeNullableInstant(out, d.getLastAttemptAt());
+        for (WebhookDelivery d : ds) {
+            byte[] payload = d.getPayload() == null ? new byte[0] : d.getPayload();
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+        out.flush();
+        return buf.toByteArray();
+    }
+
+    // Só a parte de pagamentos; as entregas arquivadas não são lidas de volta pela API
+    static List<Payment> decodePayments(byte[] raw) throws IOException {
+        return decode(raw, null);
+    }
+
+    // Bloco inteiro, para a compactação regravar as entregas junto; deliveries recebe as entregas por paymentId
+    static List<Payment> decode(byte[] raw, Map<String, List<WebhookDelivery>> deliveries) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(raw));
+        int n = in.readInt();
+        var b = new Payment.PaymentBuilder[n];
+        for (int i = 0; i < n; i++) b[i] = Payment.builder().id(in.readUTF());
+        for (int i = 0; i < n; i++) b[i].merchantId(in.readLong());
+        for (int i = 0; i < n; i++) b[i].method(in.readUTF());
+        for (int i = 0; i < n; i++) b[i].amountMinor(in.readLong());
+        for (int i = 0; i < n; i++) b[i].currency(in.readUTF());
+        for (int i = 0; i < n; i++) b[i].installments(in.readInt());
+        for (int i = 0; i < n; i++) b[i].monthlyInterest(in.readBoolean() ? in.readDouble() : null);
+        for (int i = 0; i < n; i++) b[i].totalWithInterestMinor(in.readLong());
+        for (int i = 0; i < n; i++) b[i].status(Payment.Status.valueOf(in.readUTF()));
+        for (int i = 0; i < n; i++) b[i].createdAt(readInstant(in));
+        for (int i = 0; i < n; i++) b[i].updatedAt(readInstant(in));
+        for (int i = 0; i < n; i++) b[i].idempotencyKey(readNullable(in));
+        for (int i = 0; i < n; i++) b[i].metadataOrderId(readNullable(in));
+
+        var out = new ArrayList<Payment>(n);
+        for (var builder : b) out.add(builder.build());
+        if (deliveries == null) return out;
+
+        int m = in.readInt();
+        var d = new WebhookDelivery.WebhookDeliveryBuilder[m];
+        for (int i = 0; i < m; i++) {
+            Payment owner = out.get(in.readInt());
+            d[i] = WebhookDelivery.builder().paymentId(owner.getId()).merchantId(owner.getMerchantId());
+        }
+        for (int i = 0; i < m; i++) d[i].eventId(in.readUTF());
+        for (int i = 0; i < m; i++) d[i].eventType(in.readUTF());
+        for (int i = 0; i < m; i++) d[i].sequence(in.readLong());
+        for (int i = 0; i < m; i++) d[i].occurredAt(readNullableInstant(in));
+        for (int i = 0; i < m; i++) d[i].targetUrl(readNullable(in));
+        for (int i = 0; i < m; i++) d[i].signature(readNullable(in));
+        for (int i = 0; i < m; i++) d[i].attempts(in.readInt());
+        for (int i = 0; i < m; i++) d[i].lastAttemptAt(readNullableInstant(in));
+        for (int i = 0; i < m; i++) d[i].payload(in.readNBytes(in.readInt()));
+        for (var builder : d) {
+            var delivery = builder.build();
+            deliveries.computeIfAbsent(delivery.getPaymentId(), k -> new ArrayList<>()).add(delivery);
+        }
+        return out;
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant t) throws IOException {
+        out.writeLong(t.getEpochSecond());
+        out.writeInt(t.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+
+    private static void writeNullableInstant(DataOutputStream out, Instant t) throws IOException {
+        out.writeBoolean(t != null);
+        if (t != null) writeInstant(out, t);
+    }
+
+    private static Instant readNullableInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readInstant(in) : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,20 @@
+package edu.ucsal.fiadopay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// fiadopay.archive.*: pagamentos em estado final há mais de max-age saem das tabelas e vão para segmentos em dir.
+// Desligado por padrão: um pagamento arquivado não aceita mais estorno.
+@ConfigurationProperties(prefix = "fiadopay.archive")
+public record ArchiveProperties(Boolean enabled, Path dir, Duration maxAge, Integer batchSize, Integer blockRows) {
+
+    public ArchiveProperties {
+        enabled = enabled != null && enabled;
+        dir = dir == null ? Path.of("data", "archive") : dir;
+        maxAge = maxAge == null ? Duration.ofHours(24) : maxAge;
+        batchSize = batchSize == null ? 1000 : batchSize;
+        blockRows = blockRows == null ? 512 : blockRows;
+    }
+}
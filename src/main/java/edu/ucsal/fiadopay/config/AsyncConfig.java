@@ -1,7 +1,10 @@
 package edu.ucsal.fiadopay.config;
 
+import edu.ucsal.fiadopay.util.FairScheduler;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -16,8 +19,10 @@ public class AsyncConfig {
     @Bean(name = "paymentExecutor")
     public ThreadPoolTaskExecutor paymentExecutor() {
         ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
-        ex.setCorePoolSize(4);
+        // Core = max: o FairScheduler nunca entrega mais que 8 tarefas, então a fila nunca enche para criar threads extras
+        ex.setCorePoolSize(8);
         ex.setMaxPoolSize(8);
+        ex.setAllowCoreThreadTimeOut(true);
         ex.setQueueCapacity(200);
         ex.setThreadNamePrefix("pay-");
         ex.initialize();
@@ -27,14 +32,43 @@ public class AsyncConfig {
     @Bean(name = "webhookExecutor")
     public ThreadPoolTaskExecutor webhookExecutor() {
         ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
-        ex.setCorePoolSize(4);
+        ex.setCorePoolSize(8);
         ex.setMaxPoolSize(8);
+        ex.setAllowCoreThreadTimeOut(true);
         ex.setQueueCapacity(200);
         ex.setThreadNamePrefix("wh-");
         ex.initialize();
         return ex;
     }
 
+    // Liquidações e webhooks passam por estes escalonadores, por merchant, antes de chegar aos pools acima
+    @Bean(name = "paymentFairScheduler")
+    public FairScheduler paymentFairScheduler(@Qualifier("paymentExecutor") ThreadPoolTaskExecutor paymentExecutor,
+                                              FairnessProperties fairness) {
+        return fairScheduler("payments", paymentExecutor, fairness);
+    }
+
+    @Bean(name = "webhookFairScheduler")
+    public FairScheduler webhookFairScheduler(@Qualifier("webhookExecutor") ThreadPoolTaskExecutor webhookExecutor,
+                                              FairnessProperties fairness) {
+        return fairScheduler("webhooks", webhookExecutor, fairness);
+    }
+
+    private static FairScheduler fairScheduler(String name, ThreadPoolTaskExecutor executor, FairnessProperties fairness) {
+        int pool = executor.getMaxPoolSize();
+        return new FairScheduler(name, executor, pool, fairness.queueCapacity(), fairness.quantum(),
+                merchantId -> fairness.weightOf(merchantId),
+                merchantId -> fairness.maxConcurrencyOf(merchantId, pool));
+    }
+
+    // Envio dos streams SSE: uma virtual thread por conexão só enquanto houver eventos na fila dela
+    @Bean(name = "sseExecutor")
+    public SimpleAsyncTaskExecutor sseExecutor() {
+        SimpleAsyncTaskExecutor ex = new SimpleAsyncTaskExecutor("sse-");
+        ex.setVirtualThreads(true);
+        return ex;
+    }
+
     @Bean
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
@@ -0,0 +1,35 @@
+package edu.ucsal.fiadopay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+// fiadopay.fairness.*: filas por merchant na frente de paymentExecutor e webhookExecutor.
+// weights e max-concurrency são indexados pelo id do merchant; quem não aparece usa os padrões.
+@ConfigurationProperties(prefix = "fiadopay.fairness")
+public record FairnessProperties(Integer queueCapacity,
+                                 Integer quantum,
+                                 Integer defaultWeight,
+                                 Integer defaultMaxConcurrency,
+                                 Map<Long, Integer> weights,
+                                 Map<Long, Integer> maxConcurrency) {
+
+    public FairnessProperties {
+        queueCapacity = queueCapacity == null ? 10_000 : queueCapacity;
+        quantum = quantum == null ? 1 : quantum;
+        defaultWeight = defaultWeight == null ? 1 : defaultWeight;
+        defaultMaxConcurrency = defaultMaxConcurrency == null ? 0 : defaultMaxConcurrency;
+        weights = weights == null ? Map.of() : weights;
+        maxConcurrency = maxConcurrency == null ? Map.of() : maxConcurrency;
+    }
+
+    public int weightOf(long merchantId) {
+        return weights.getOrDefault(merchantId, defaultWeight);
+    }
+
+    // 0 = sem teto além do tamanho do pool
+    public int maxConcurrencyOf(long merchantId, int poolSize) {
+        int cap = maxConcurrency.getOrDefault(merchantId, defaultMaxConcurrency);
+        return cap <= 0 ? poolSize : Math.min(cap, poolSize);
+    }
+}
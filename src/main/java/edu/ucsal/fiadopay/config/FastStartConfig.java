@@ -0,0 +1,18 @@
+package edu.ucsal.fiadopay.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("faststart")
+public class FastStartConfig {
+
+    // Com spring.main.lazy-initialization ligado, os beans do gateway continuam sendo criados no boot
+    // (o primeiro pagamento não paga a inicialização); springdoc, console H2 e afins ficam para o primeiro uso
+    @Bean
+    static LazyInitializationExcludeFilter eagerGatewayBeans() {
+        return (beanName, definition, beanType) -> beanType.getName().startsWith("edu.ucsal.fiadopay.");
+    }
+}
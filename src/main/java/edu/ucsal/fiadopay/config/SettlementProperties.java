@@ -0,0 +1,36 @@
+package edu.ucsal.fiadopay.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// fiadopay.settlement.*: modelo de latência e de falha da liquidação simulada, por método de pagamento.
+// Métodos sem configuração usam fiadopay.processing-delay-ms (fixo) e fiadopay.failure-rate.
+@ConfigurationProperties(prefix = "fiadopay.settlement")
+public record SettlementProperties(Long seed, Map<String, Method> methods) {
+
+    public SettlementProperties {
+        methods = methods == null ? Map.of() : methods;
+    }
+
+    public record Method(Latency latency,
+                         Double failureRate,
+                         List<AmountBand> amountBands,
+                         Map<Long, Double> merchantFailureRates) {}
+
+    public record Latency(Kind kind,
+                          Long fixedMs,
+                          Long minMs,
+                          Long maxMs,
+                          Double medianMs,
+                          Double sigma,
+                          String replayFile,
+                          List<Long> samplesMs) {}
+
+    public enum Kind { FIXED, UNIFORM, LOGNORMAL, REPLAY }
+
+    // Taxa de falha aplicada a valores acima de "above" (em reais); vale a maior faixa atingida
+    public record AmountBand(BigDecimal above, double failureRate) {}
+}
@@ -0,0 +1,23 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.service.LedgerService;
+import edu.ucsal.fiadopay.service.MerchantAuthenticator;
+import org.springframework.web.bind.annotation.*;
+import lombok.RequiredArgsConstructor;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+
+@RestController
+@RequestMapping("/fiadopay/gateway")
+@RequiredArgsConstructor
+public class BalanceController {
+  private final MerchantAuthenticator authenticator;
+  private final LedgerService ledger;
+
+  @GetMapping("/balance")
+  @SecurityRequirement(name = "bearerAuth")
+  public BalanceResponse balance(@Parameter(hidden = true) @RequestHeader("Authorization") String auth) {
+    var merchantId = authenticator.authenticate(auth);
+    return new BalanceResponse(merchantId, ledger.balances(merchantId));
+  }
+}
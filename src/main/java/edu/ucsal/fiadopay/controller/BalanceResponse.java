@@ -0,0 +1,4 @@
+package edu.ucsal.fiadopay.controller;
+import edu.ucsal.fiadopay.domain.Money;
+import java.util.Map;
+public record BalanceResponse(Long merchantId, Map<String, Money> balances) {}
@@ -1,12 +1,16 @@
 package edu.ucsal.fiadopay.controller;
 
 import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.plugins.PluginRegistry;
 import edu.ucsal.fiadopay.repo.MerchantRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import lombok.RequiredArgsConstructor;
 import jakarta.validation.Valid;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
@@ -14,12 +18,14 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class MerchantAdminController {
   private final MerchantRepository merchants;
+  private final PluginRegistry pluginRegistry;
 
   @PostMapping
   public Merchant create(@Valid @RequestBody MerchantCreateDTO dto) {
     if (merchants.existsByName(dto.name())) {
       throw new ResponseStatusException(HttpStatus.CONFLICT, "Merchant name already exists");
     }
+    validateWebhookUrl(dto.webhookUrl());
     var m = Merchant.builder()
         .name(dto.name())
         .webhookUrl(dto.webhookUrl())
@@ -29,4 +35,17 @@ public class MerchantAdminController {
         .build();
     return merchants.save(m);
   }
+
+  // Só esquemas com transporte registrado, e cada transporte confere o próprio destino (ex.: file:// confinado)
+  private void validateWebhookUrl(String webhookUrl) {
+    try {
+      URI uri = new URI(webhookUrl);
+      String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+      var sink = pluginRegistry.sink(scheme)
+          .orElseThrow(() -> new IllegalArgumentException("Unsupported webhook scheme: " + scheme));
+      sink.validate(uri);
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid webhookUrl: " + e.getMessage());
+    }
+  }
 }
@@ -1,18 +1,33 @@
 package edu.ucsal.fiadopay.controller;
 
+import edu.ucsal.fiadopay.service.PaymentEventStream;
 import edu.ucsal.fiadopay.service.PaymentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.ResponseStatusException;
 import lombok.RequiredArgsConstructor;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
 @RestController
 @RequestMapping("/fiadopay/gateway")
 @RequiredArgsConstructor
 public class PaymentController {
   private final PaymentService service;
+  private final PaymentEventStream events;
+
+  @Value("${fiadopay.settle-wait.default-timeout:10s}")
+  private Duration defaultSettleWait;
+  @Value("${fiadopay.settle-wait.max-timeout:30s}")
+  private Duration maxSettleWait;
 
   @PostMapping("/payments")
   @SecurityRequirement(name = "bearerAuth")
@@ -25,11 +40,49 @@ public class PaymentController {
     return ResponseEntity.status(HttpStatus.CREATED).body(resp);
   }
 
+  // Devolve o status final (APPROVED/DECLINED) sem polling; a thread do Tomcat é liberada enquanto espera.
+  // Se o timeout estourar antes da liquidação, responde com o pagamento ainda PENDING.
+  @PostMapping(path = "/payments", params = "wait=settled")
+  @SecurityRequirement(name = "bearerAuth")
+  public DeferredResult<ResponseEntity<PaymentResponse>> createAndWait(
+      @Parameter(hidden = true) @RequestHeader("Authorization") String auth,
+      @RequestHeader(value="Idempotency-Key", required=false) String idemKey,
+      @RequestParam(value="timeout", required=false) String timeout,
+      @RequestBody @Valid PaymentRequest req
+  ) {
+    var wait = settleWait(timeout);
+    var created = service.createPayment(auth, idemKey, req);
+    var result = new DeferredResult<ResponseEntity<PaymentResponse>>(
+        wait.toMillis(), ResponseEntity.status(HttpStatus.CREATED).body(created));
+    var settled = service.awaitSettlement(created);
+    settled.thenAccept(p -> result.setResult(ResponseEntity.status(HttpStatus.CREATED).body(p)));
+    // onCompletion cobre timeout, erro e desconexão; se a liquidação já chegou, a entrada já saiu e nada muda
+    result.onCompletion(() -> service.abandonSettlementWait(created.id(), settled));
+    return result;
+  }
+
+  private Duration settleWait(String timeout) {
+    if (timeout == null) return defaultSettleWait;
+    Duration d;
+    try { d = DurationStyle.detectAndParse(timeout, ChronoUnit.MILLIS); }
+    catch (IllegalArgumentException ex) { throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid timeout: " + timeout); }
+    if (d.isNegative() || d.isZero()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid timeout: " + timeout);
+    return d.compareTo(maxSettleWait) > 0 ? maxSettleWait : d;
+  }
+
   @GetMapping("/payments/{id}")
   public PaymentResponse get(@PathVariable String id) {
     return service.getPayment(id);
   }
 
+  // Eventos de status dos pagamentos do merchant; reconecte enviando Last-Event-ID para retomar
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @SecurityRequirement(name = "bearerAuth")
+  public SseEmitter events(@Parameter(hidden = true) @RequestHeader("Authorization") String auth,
+                           @RequestHeader(value="Last-Event-ID", required=false) String lastEventId) {
+    return events.subscribe(auth, lastEventId);
+  }
+
   @PostMapping("/refunds")
   @SecurityRequirement(name = "bearerAuth")
   public java.util.Map<String,Object> refund(@Parameter(hidden = true) @RequestHeader("Authorization") String auth,
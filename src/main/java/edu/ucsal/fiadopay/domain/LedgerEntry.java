@@ -0,0 +1,55 @@
+package edu.ucsal.fiadopay.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+// Lançamento de partida dobrada: cada linha debita uma conta e credita outra pelo mesmo valor.
+// Só é inserido, nunca alterado; "compacted" marca o que já foi consolidado em MerchantBalance.
+@Entity
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(
+    indexes = { @Index(columnList="merchantId"), @Index(columnList="compacted") },
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ledger_payment_type", columnNames = {"paymentId", "type"})
+    }
+)
+public class LedgerEntry {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long merchantId;
+
+    @Column(nullable = false)
+    private String paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type; // CAPTURE|REFUND
+
+    @Column(nullable = false, length = 40)
+    private String debitAccount;  // clearing | merchant:<id>
+
+    @Column(nullable = false, length = 40)
+    private String creditAccount;
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private long amountMinor; // centavos, sempre positivo
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private boolean compacted;
+
+    public enum Type { CAPTURE, REFUND }
+
+    // Efeito no saldo do merchant: captura credita, estorno debita
+    public long merchantDelta() {
+        return type == Type.CAPTURE ? amountMinor : -amountMinor;
+    }
+}
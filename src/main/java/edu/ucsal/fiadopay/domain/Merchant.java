@@ -2,8 +2,10 @@ package edu.ucsal.fiadopay.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@DynamicUpdate
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 public class Merchant {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,33 @@
+package edu.ucsal.fiadopay.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import java.time.Instant;
+
+// Saldo consolidado por merchant e moeda: soma de todos os LedgerEntry já compactados
+@Entity
+@DynamicUpdate
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_merchant_currency", columnNames = {"merchantId", "currency"})
+    }
+)
+public class MerchantBalance {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long merchantId;
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private long balanceMinor;
+
+    @Column(nullable = false)
+    private Instant compactedAt;
+}
@@ -0,0 +1,21 @@
+package edu.ucsal.fiadopay.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Centavos em memória, DECIMAL(19,2) no banco: o schema não muda
+@Converter
+public class MinorUnitsConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minor) {
+        return minor == null ? null : Money.toBigDecimal(minor);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.toMinor(amount);
+    }
+}
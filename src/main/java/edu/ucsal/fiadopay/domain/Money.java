@@ -0,0 +1,204 @@
+package edu.ucsal.fiadopay.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Valor monetário em centavos (long), sem BigDecimal no caminho quente.
+// No JSON sai como número decimal (1000.00) e no banco continua DECIMAL(19,2), via MinorUnitsConverter.
+@JsonSerialize(using = Money.JsonSerializer.class)
+@Schema(type = "number", example = "1000.00")
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    private static final int MAX_INTERNED_CURRENCIES = 256;
+    // Limites de withCompoundInterest; o parcelamento aceito pela API vai até 12x
+    private static final int MAX_MONTHS = 12;
+    private static final int MAX_MONTHLY_PERCENT = 100;
+    private static final int MAX_LONG_MONTHS = 9; // 100^9 < 2^63 <= 100^10
+    // 100^k em 128 bits (parte alta, parte baixa), k = 0..MAX_MONTHS
+    private static final long[] POW100_HI = new long[MAX_MONTHS + 1];
+    private static final long[] POW100_LO = new long[MAX_MONTHS + 1];
+
+    static {
+        POW100_LO[0] = 1;
+        for (int k = 1; k <= MAX_MONTHS; k++) {
+            POW100_LO[k] = POW100_LO[k - 1] * 100;
+            POW100_HI[k] = POW100_HI[k - 1] * 100 + Math.unsignedMultiplyHigh(POW100_LO[k - 1], 100);
+        }
+    }
+    private static final Map<String, String> CURRENCIES = new ConcurrentHashMap<>();
+
+    private final long minor;
+    private final String currency;
+
+    private Money(long minor, String currency) {
+        this.minor = minor;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minor, String currency) {
+        return new Money(minor, intern(currency));
+    }
+
+    public static Money of(BigDecimal amount, String currency) {
+        return ofMinor(toMinor(amount), currency);
+    }
+
+    // Lança ArithmeticException se houver mais de 2 casas decimais ou se não couber em long
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static long toMinor(double major) {
+        return Math.round(major * 100);
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public long minor() {
+        return minor;
+    }
+
+    public String currency() {
+        return currency;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minor);
+    }
+
+    // Juros compostos mensais: valor * (1 + taxa/100)^meses, arredondado uma única vez (HALF_UP) para centavos.
+    // Nada de BigInteger nem de exceção no caminho quente; só lança se o resultado em si não couber em long.
+    public Money withCompoundInterest(int monthlyPercent, int months) {
+        return new Money(compoundInterest(minor, monthlyPercent, months), currency);
+    }
+
+    // O mesmo cálculo direto em centavos, para quem não precisa de um Money (ex.: CardPlugin.enrich)
+    public static long compoundInterest(long minor, int monthlyPercent, int months) {
+        if (monthlyPercent < 0 || monthlyPercent > MAX_MONTHLY_PERCENT || months < 0 || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("Unsupported interest: " + monthlyPercent + "% x " + months);
+        }
+        long magnitude = Math.absExact(minor);
+        long q = compoundInLong(magnitude, 100L + monthlyPercent, months);
+        if (q < 0) q = compoundCarried(magnitude, monthlyPercent, months);
+        return minor < 0 ? -q : q;
+    }
+
+    // Caso comum (valores e prazos curtos): valor * base^meses e 100^meses cabem em long. -1 se não couberem.
+    private static long compoundInLong(long magnitude, long base, int months) {
+        if (months > MAX_LONG_MONTHS) return -1;
+        long num = magnitude;
+        for (int k = 0; k < months; k++) {
+            long lo = num * base;
+            if (Math.multiplyHigh(num, base) != 0 || lo < 0) return -1;
+            num = lo;
+        }
+        long den = POW100_LO[months];
+        long r = num % den;
+        return num / den + (r >= den - r ? 1 : 0);
+    }
+
+    // Mês a mês o valor fica exato como q + r/100^k, com q em long e o resto r em 128 bits (r < 100^k <= 10^24)
+    private static long compoundCarried(long magnitude, int monthlyPercent, int months) {
+        long base = 100L + monthlyPercent;
+        long q = magnitude;
+        long rHi = 0, rLo = 0;
+        for (int k = 0; k < months; k++) {
+            // q * base = 100 * a + b, sem passar por q * base (que estoura para valores grandes)
+            long extra = monthlyPercent * (q % 100);
+            long a = Math.addExact(q, Math.addExact(Math.multiplyExact(q / 100, monthlyPercent), extra / 100));
+            long b = extra % 100;
+
+            // novo resto, sobre 100^(k+1): b * 100^k + base * r  (< 300 * 100^k, cabe em 128 bits)
+            long lo1 = POW100_LO[k] * b;
+            long hi1 = POW100_HI[k] * b + Math.unsignedMultiplyHigh(POW100_LO[k], b);
+            long lo2 = rLo * base;
+            long hi2 = rHi * base + Math.unsignedMultiplyHigh(rLo, base);
+            rLo = lo1 + lo2;
+            rHi = hi1 + hi2 + (Long.compareUnsigned(rLo, lo1) < 0 ? 1 : 0);
+
+            long dHi = POW100_HI[k + 1], dLo = POW100_LO[k + 1];
+            while (Long.compareUnsigned(rHi, dHi) > 0 || (rHi == dHi && Long.compareUnsigned(rLo, dLo) >= 0)) {
+                rHi = rHi - dHi - (Long.compareUnsigned(rLo, dLo) < 0 ? 1 : 0);
+                rLo -= dLo;
+                a = Math.addExact(a, 1);
+            }
+            q = a;
+        }
+        // HALF_UP: arredonda para cima se 2r >= 100^meses
+        long twiceHi = (rHi << 1) | (rLo >>> 63), twiceLo = rLo << 1;
+        long dHi = POW100_HI[months], dLo = POW100_LO[months];
+        if (Long.compareUnsigned(twiceHi, dHi) > 0 || (twiceHi == dHi && Long.compareUnsigned(twiceLo, dLo) >= 0)) {
+            q = Math.addExact(q, 1);
+        }
+        return q;
+    }
+
+    @Override
+    public int compareTo(Money o) {
+        if (!Objects.equals(currency, o.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " x " + o.currency);
+        }
+        return Long.compare(minor, o.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money m && minor == m.minor && Objects.equals(currency, m.currency));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minor) + Objects.hashCode(currency);
+    }
+
+    // Representação decimal simples, sem expoente: 1000.00, -0.05
+    @Override
+    public String toString() {
+        return toPlainString(minor);
+    }
+
+    public static String toPlainString(long minor) {
+        StringBuilder sb = new StringBuilder(24);
+        if (minor < 0) sb.append('-');
+        long units = Math.abs(minor / 100);
+        int cents = (int) Math.abs(minor % 100);
+        sb.append(units).append('.');
+        if (cents < 10) sb.append('0');
+        return sb.append(cents).toString();
+    }
+
+    // Poucos códigos distintos circulam (BRL, USD...); o limite evita que valores arbitrários cresçam o mapa
+    private static String intern(String currency) {
+        if (currency == null) return null;
+        String cached = CURRENCIES.get(currency);
+        if (cached != null) return cached;
+        if (CURRENCIES.size() >= MAX_INTERNED_CURRENCIES) return currency;
+        String prev = CURRENCIES.putIfAbsent(currency, currency);
+        return prev != null ? prev : currency;
+    }
+
+    public static final class JsonSerializer extends StdSerializer<Money> {
+        public JsonSerializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(value.toString());
+        }
+    }
+}
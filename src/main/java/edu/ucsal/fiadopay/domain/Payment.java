@@ -2,13 +2,14 @@ package edu.ucsal.fiadopay.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.Instant;
 
 @Entity
+@DynamicUpdate
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 @Table(
-    indexes = { @Index(columnList="merchantId"), @Index(columnList="status") },
+    indexes = { @Index(columnList="merchantId"), @Index(columnList="status"), @Index(columnList="updatedAt") },
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_payment_merchant_idempotency", columnNames = {"merchantId", "idempotencyKey"})
     }
@@ -23,8 +24,9 @@ public class Payment {
     @Column(nullable = false, length = 20)
     private String method; // CARD|PIX|DEBIT|BOLETO
 
-    @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal amount;
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private long amountMinor; // centavos
 
     @Column(nullable = false, length = 10)
     private String currency;
@@ -35,8 +37,9 @@ public class Payment {
     // Mantido como Double por simplicidade no simulador
     private Double monthlyInterest; // 1.0 (=1%/mês)
 
-    @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal totalWithInterest;
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(name = "total_with_interest", nullable = false, precision = 19, scale = 2)
+    private long totalWithInterestMinor; // centavos
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
@@ -53,4 +56,25 @@ public class Payment {
     private String metadataOrderId;
 
     public enum Status { PENDING, APPROVED, DECLINED, EXPIRED, REFUNDED }
+
+    // Um Money novo por chamada: serve à resposta e aos eventos; cálculos usam os campos *Minor
+    public Money getAmount() {
+        return Money.ofMinor(amountMinor, currency);
+    }
+
+    public Money getTotalWithInterest() {
+        return Money.ofMinor(totalWithInterestMinor, currency);
+    }
+
+    public void setTotalWithInterest(Money total) {
+        this.totalWithInterestMinor = total.minor();
+    }
+
+    public static class PaymentBuilder {
+        public PaymentBuilder amount(Money amount) {
+            this.amountMinor = amount.minor();
+            this.currency = amount.currency();
+            return this;
+        }
+    }
 }
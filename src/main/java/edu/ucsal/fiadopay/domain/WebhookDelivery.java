@@ -2,23 +2,32 @@ package edu.ucsal.fiadopay.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"paymentId", "sequence"}))
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 public class WebhookDelivery {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String eventId;     // evt_xxx
+    private String eventId;     // evt_<paymentId>_<sequence>
     private String eventType;   // payment.updated
     private String paymentId;
+    private Long merchantId;    // chave da fila justa de envio
+    private long sequence;      // 1, 2, ... por pagamento, na ordem dos eventos
+    private Instant occurredAt; // instante do evento, não do envio
     private String targetUrl;   // merchant webhook
-    private String signature;   // HMAC
+    private String signature;   // HMAC do payload, calculado uma vez
     private int attempts;
     private boolean delivered;
+    private boolean dead;       // esgotou fiadopay.webhook-max-attempts sem entregar; não é mais reenviada
     private Instant lastAttemptAt;
 
-    @Lob
-    private String payload;
+    // VARBINARY e não @Lob: o H2 em MODE=PostgreSQL não aceita o tipo BLOB que o Hibernate gera para byte[]
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(length = 65536)
+    private byte[] payload;     // JSON já serializado; é exatamente o que vai para o transporte
 }
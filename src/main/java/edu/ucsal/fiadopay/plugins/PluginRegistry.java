@@ -1,45 +1,99 @@
 package edu.ucsal.fiadopay.plugins;
 
+import edu.ucsal.fiadopay.plugins.annotations.AntiFraud;
 import edu.ucsal.fiadopay.plugins.annotations.PaymentMethod;
+import edu.ucsal.fiadopay.plugins.annotations.WebhookSink;
 import edu.ucsal.fiadopay.plugins.spi.AntiFraudRule;
 import edu.ucsal.fiadopay.plugins.spi.PaymentPlugin;
+import edu.ucsal.fiadopay.plugins.spi.SettlementModel;
+import edu.ucsal.fiadopay.plugins.spi.WebhookTransport;
 import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
+import java.lang.annotation.Annotation;
 import java.util.*;
 
 @Component
 public final class PluginRegistry {
 
     private final Map<String, PaymentPlugin> byMethod;
+    private final Map<String, SettlementModel> settlementByMethod;
     private final List<AntiFraudRule> rules;
+    private final Map<String, WebhookTransport> byScheme;
 
     public PluginRegistry(ListableBeanFactory beanFactory) {
-        Map<String, Object> beans = beanFactory.getBeansWithAnnotation(PaymentMethod.class);
+        // META-INF/spring.components é gerado em tempo de compilação no perfil faststart;
+        // sem ele, cai na varredura reflexiva de todos os beans
+        ClassLoader cl = PluginRegistry.class.getClassLoader();
+        CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(cl);
 
+        // @PaymentMethod marca tanto o plugin do método quanto um SettlementModel próprio dele
         Map<String, PaymentPlugin> tmpByMethod = new HashMap<>();
-        List<AntiFraudRule> tmpRules = new ArrayList<>();
-
-        for (Object o : beans.values()) {
+        Map<String, SettlementModel> tmpSettlement = new HashMap<>();
+        for (Object o : candidates(beanFactory, index, cl, PaymentMethod.class)) {
+            PaymentMethod ann = o.getClass().getAnnotation(PaymentMethod.class);
+            if (ann == null) continue;
             if (o instanceof PaymentPlugin pp) {
-                PaymentMethod ann = o.getClass().getAnnotation(PaymentMethod.class);
-                if (ann != null) {
-                    tmpByMethod.put(ann.value(), pp);
-                }
+                tmpByMethod.put(ann.value(), pp);
+            }
+            if (o instanceof SettlementModel sm) {
+                tmpSettlement.put(ann.value(), sm);
             }
+        }
+
+        List<AntiFraudRule> tmpRules = new ArrayList<>();
+        for (Object o : candidates(beanFactory, index, cl, AntiFraud.class)) {
             if (o instanceof AntiFraudRule ar) {
                 tmpRules.add(ar);
             }
         }
 
+        Map<String, WebhookTransport> tmpByScheme = new HashMap<>();
+        for (Object o : candidates(beanFactory, index, cl, WebhookSink.class)) {
+            if (o instanceof WebhookTransport wt) {
+                WebhookSink ann = o.getClass().getAnnotation(WebhookSink.class);
+                if (ann != null) {
+                    for (String scheme : ann.value()) {
+                        tmpByScheme.put(scheme.toLowerCase(Locale.ROOT), wt);
+                    }
+                }
+            }
+        }
+
         this.byMethod = Collections.unmodifiableMap(tmpByMethod);
+        this.settlementByMethod = Collections.unmodifiableMap(tmpSettlement);
         this.rules = Collections.unmodifiableList(tmpRules);
+        this.byScheme = Collections.unmodifiableMap(tmpByScheme);
+    }
+
+    private static Collection<Object> candidates(ListableBeanFactory beanFactory,
+                                                 CandidateComponentsIndex index,
+                                                 ClassLoader cl,
+                                                 Class<? extends Annotation> annotation) {
+        if (index == null) {
+            return beanFactory.getBeansWithAnnotation(annotation).values();
+        }
+        List<Object> beans = new ArrayList<>();
+        for (String type : index.getCandidateTypes("", annotation.getName())) {
+            Class<?> clazz = ClassUtils.resolveClassName(type, cl);
+            for (String name : beanFactory.getBeanNamesForType(clazz, true, false)) {
+                beans.add(beanFactory.getBean(name));
+            }
+        }
+        return beans;
     }
 
     public Optional<PaymentPlugin> plugin(String method) {
         return Optional.ofNullable(byMethod.get(method));
     }
 
+    public Map<String, SettlementModel> settlementModels() {
+        return settlementByMethod;
+    }
+
     public List<AntiFraudRule> rules() {
         return rules;
     }
@@ -47,4 +101,8 @@ public final class PluginRegistry {
     public Set<String> supportedMethods() {
         return byMethod.keySet();
     }
-}
\ No newline at end of file
+
+    public Optional<WebhookTransport> sink(String scheme) {
+        return scheme == null ? Optional.empty() : Optional.ofNullable(byScheme.get(scheme.toLowerCase(Locale.ROOT)));
+    }
+}
@@ -1,5 +1,7 @@
 package edu.ucsal.fiadopay.plugins.annotations;
 
+import org.springframework.stereotype.Indexed;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -7,7 +9,12 @@ import java.lang.annotation.Target;
 
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
+@Indexed
 public @interface AntiFraud {
     String name();
     double threshold() default Double.MAX_VALUE;
+    // Regras de velocidade: threshold é a soma máxima (em reais) e maxCount o número máximo de pagamentos
+    // dentro de windowSeconds; 0 = regra sem janela
+    long maxCount() default Long.MAX_VALUE;
+    long windowSeconds() default 0;
 }
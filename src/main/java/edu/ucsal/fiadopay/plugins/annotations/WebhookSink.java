@@ -1,5 +1,7 @@
 package edu.ucsal.fiadopay.plugins.annotations;
 
+import org.springframework.stereotype.Indexed;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -7,6 +9,7 @@ import java.lang.annotation.Target;
 
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
+@Indexed
 public @interface WebhookSink {
-    String value() default "";
+    String[] value(); // esquemas de URL atendidos: "http", "file", "queue"...
 }
@@ -0,0 +1,150 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import edu.ucsal.fiadopay.plugins.annotations.WebhookSink;
+import edu.ucsal.fiadopay.plugins.spi.WebhookTransport;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Grava os eventos em NDJSON (file:///caminho/arquivo.ndjson), acumulando em lote antes de escrever.
+// O caminho da URI é relativo a fiadopay.sinks.file.dir; qualquer coisa que saia desse diretório é recusada.
+// O evento conta como entregue ao entrar no lote; o flush acontece ao atingir batch-bytes ou no timer.
+// Se a escrita falhar, o lote continua no buffer para o próximo flush (sem devolver erro a quem já entregou,
+// senão a retentativa duplicaria a linha). Acima de max-buffered-bytes por arquivo, deliver recusa o evento
+// antes de acumulá-lo, e o dispatcher tenta de novo mais tarde.
+@Component
+@WebhookSink("file")
+public class FileWebhookSink implements WebhookTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(FileWebhookSink.class);
+
+    private final Map<Path, Batch> batches = new ConcurrentHashMap<>();
+
+    private final Path baseDir;
+    private final int batchBytes;
+    private final int maxBufferedBytes;
+
+    public FileWebhookSink(@Value("${fiadopay.sinks.file.dir:./data/webhooks}") Path baseDir,
+                           @Value("${fiadopay.sinks.file.batch-bytes:65536}") int batchBytes,
+                           @Value("${fiadopay.sinks.file.max-buffered-bytes:8388608}") int maxBufferedBytes) {
+        this.baseDir = baseDir.toAbsolutePath().normalize();
+        this.batchBytes = batchBytes;
+        this.maxBufferedBytes = Math.max(batchBytes, maxBufferedBytes);
+    }
+
+    @Override
+    public void validate(URI target) {
+        resolve(target);
+    }
+
+    @Override
+    public void deliver(URI target, String eventType, String signature, byte[] body) throws IOException {
+        Path path = resolve(target);
+        batches.computeIfAbsent(path, Batch::new).append(envelope(eventType, signature, body), batchBytes, maxBufferedBytes);
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.sinks.file.flush-interval-ms:200}")
+    public void flushAll() {
+        for (Batch b : batches.values()) {
+            try {
+                b.flush();
+            } catch (IOException e) {
+                log.warn("Falha ao gravar lote de webhooks em {}", b.path, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flushAll();
+    }
+
+    Path resolve(URI target) {
+        if (!"file".equalsIgnoreCase(target.getScheme()) || target.getRawAuthority() != null
+                || target.getPath() == null || target.getPath().isBlank()) {
+            throw new IllegalArgumentException("Expected file:///<path relative to the sink directory>");
+        }
+        Path path = baseDir.resolve(target.getPath().replaceFirst("^/+", "")).normalize();
+        if (!path.startsWith(baseDir) || path.equals(baseDir)) {
+            throw new IllegalArgumentException("File sink path escapes " + baseDir);
+        }
+        return path;
+    }
+
+    private static byte[] envelope(String eventType, String signature, byte[] body) {
+        byte[] head = ("{\"eventType\":\"" + eventType + "\",\"signature\":\"" + signature + "\",\"payload\":")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] line = new byte[head.length + body.length + 2];
+        System.arraycopy(head, 0, line, 0, head.length);
+        System.arraycopy(body, 0, line, head.length, body.length);
+        line[line.length - 2] = '}';
+        line[line.length - 1] = '\n';
+        return line;
+    }
+
+    private static final class Batch {
+        private final Path path;
+        private final Object writeLock = new Object();
+        private ByteArrayOutputStream buf = new ByteArrayOutputStream();
+
+        Batch(Path path) {
+            this.path = path;
+        }
+
+        void append(byte[] line, int limit, int maxBuffered) throws IOException {
+            synchronized (this) {
+                if (buf.size() + line.length > maxBuffered) {
+                    throw new IOException("File sink buffer full for " + path + " (" + buf.size() + " bytes)");
+                }
+                buf.write(line);
+                if (buf.size() < limit) return;
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                // A linha já está no lote e será gravada no próximo flush; não é erro desta entrega
+                log.warn("Falha ao gravar lote de webhooks em {}; mantido para o próximo flush", path, e);
+            }
+        }
+
+        // Troca o buffer sob o lock curto e escreve fora dele, para não travar quem está acumulando
+        void flush() throws IOException {
+            synchronized (writeLock) {
+                ByteArrayOutputStream full;
+                synchronized (this) {
+                    if (buf.size() == 0) return;
+                    full = buf;
+                    buf = new ByteArrayOutputStream(full.size());
+                }
+                try {
+                    if (path.getParent() != null) Files.createDirectories(path.getParent());
+                    try (OutputStream out = Files.newOutputStream(path,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                        full.writeTo(out);
+                    }
+                } catch (IOException e) {
+                    // Volta para a frente do buffer, antes do que chegou durante a escrita: a ordem se mantém
+                    synchronized (this) {
+                        buf.writeTo(full);
+                        buf = full;
+                    }
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import edu.ucsal.fiadopay.plugins.annotations.WebhookSink;
+import edu.ucsal.fiadopay.plugins.spi.WebhookTransport;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+@Component
+@WebhookSink({"http", "https"})
+public class HttpWebhookSink implements WebhookTransport {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Override
+    public void deliver(URI target, String eventType, String signature, byte[] body) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(target)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .header("X-Event-Type", eventType)
+                .header("X-Signature", signature)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        HttpResponse<Void> resp = http.send(req, HttpResponse.BodyHandlers.discarding());
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+            throw new IllegalStateException("Webhook failed with status " + resp.statusCode());
+        }
+    }
+}
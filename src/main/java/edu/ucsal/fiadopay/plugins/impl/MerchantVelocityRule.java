@@ -0,0 +1,21 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.annotations.AntiFraud;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+// Volume do merchant como um todo: pega conta comprometida ou integração em loop
+@Component
+@AntiFraud(name = "MerchantVelocity", threshold = 5_000_000.00, maxCount = 6_000, windowSeconds = 60)
+public class MerchantVelocityRule extends VelocityRule<Long> {
+
+    public MerchantVelocityRule(Environment env) {
+        super(env);
+    }
+
+    @Override
+    Long key(Payment p) {
+        return p.getMerchantId();
+    }
+}
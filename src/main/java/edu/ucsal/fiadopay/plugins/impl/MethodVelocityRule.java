@@ -0,0 +1,23 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.annotations.AntiFraud;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+// Volume por merchant e método: um pico só de CARD não se dilui no volume de PIX do mesmo merchant
+@Component
+@AntiFraud(name = "MethodVelocity", threshold = 2_000_000.00, maxCount = 3_000, windowSeconds = 60)
+public class MethodVelocityRule extends VelocityRule<MethodVelocityRule.MethodKey> {
+
+    record MethodKey(long merchantId, String method) {}
+
+    public MethodVelocityRule(Environment env) {
+        super(env);
+    }
+
+    @Override
+    MethodKey key(Payment p) {
+        return new MethodKey(p.getMerchantId(), p.getMethod());
+    }
+}
@@ -0,0 +1,23 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.annotations.AntiFraud;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+// Muitas tentativas para o mesmo pedido (com Idempotency-Keys diferentes) é o padrão de teste de cartões
+@Component
+@AntiFraud(name = "OrderVelocity", maxCount = 3, windowSeconds = 600)
+public class OrderVelocityRule extends VelocityRule<OrderVelocityRule.OrderKey> {
+
+    record OrderKey(long merchantId, String orderId) {}
+
+    public OrderVelocityRule(Environment env) {
+        super(env);
+    }
+
+    @Override
+    OrderKey key(Payment p) {
+        return p.getMetadataOrderId() == null ? null : new OrderKey(p.getMerchantId(), p.getMetadataOrderId());
+    }
+}
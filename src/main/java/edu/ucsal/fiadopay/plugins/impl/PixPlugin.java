@@ -6,8 +6,6 @@ import edu.ucsal.fiadopay.plugins.annotations.PaymentMethod;
 import edu.ucsal.fiadopay.plugins.spi.PaymentPlugin;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-
 @Component
 @PaymentMethod("PIX")
 public class PixPlugin implements PaymentPlugin {
@@ -16,9 +14,8 @@ public class PixPlugin implements PaymentPlugin {
     @Override
     public void enrich(Payment p, PaymentRequest req) {
         if (p == null) return;
-        BigDecimal amount = p.getAmount() == null ? BigDecimal.ZERO : p.getAmount();
         p.setInstallments(1);
         p.setMonthlyInterest(null);
-        p.setTotalWithInterest(amount);
+        p.setTotalWithInterestMinor(p.getAmountMinor());
     }
 }
@@ -0,0 +1,67 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import edu.ucsal.fiadopay.plugins.annotations.WebhookSink;
+import edu.ucsal.fiadopay.plugins.spi.WebhookTransport;
+import edu.ucsal.fiadopay.util.RingBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Entrega em memória (queue://<nome>) para testes de integração e consumidores no mesmo processo.
+// O corpo assinado é repassado sem cópia; quem drena a fila não deve alterar o array.
+@Component
+@WebhookSink("queue")
+public class QueueWebhookSink implements WebhookTransport {
+
+    public record Event(String eventType, String signature, byte[] body, long enqueuedAtNanos) {}
+
+    private final Map<String, RingBuffer<Event>> queues = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final int maxQueues;
+
+    public QueueWebhookSink(@Value("${fiadopay.sinks.queue.capacity:65536}") int capacity,
+                            @Value("${fiadopay.sinks.queue.max-queues:64}") int maxQueues) {
+        this.capacity = capacity;
+        this.maxQueues = maxQueues;
+    }
+
+    @Override
+    public void deliver(URI target, String eventType, String signature, byte[] body) {
+        var event = new Event(eventType, signature, body, System.nanoTime());
+        if (!queue(queueName(target)).offer(event)) {
+            throw new IllegalStateException("Queue full: " + target);
+        }
+    }
+
+    public Event poll(String name) {
+        var q = queues.get(name);
+        return q == null ? null : q.poll();
+    }
+
+    public int drain(String name, Consumer<Event> consumer, int max) {
+        var q = queues.get(name);
+        return q == null ? 0 : q.drain(consumer, max);
+    }
+
+    public int size(String name) {
+        var q = queues.get(name);
+        return q == null ? 0 : q.size();
+    }
+
+    private RingBuffer<Event> queue(String name) {
+        var q = queues.get(name);
+        if (q != null) return q;
+        if (queues.size() >= maxQueues) {
+            throw new IllegalStateException("Too many webhook queues, rejecting: " + name);
+        }
+        return queues.computeIfAbsent(name, k -> new RingBuffer<>(capacity));
+    }
+
+    private static String queueName(URI target) {
+        return target.getHost() != null ? target.getHost() : target.getSchemeSpecificPart();
+    }
+}
@@ -0,0 +1,57 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.domain.Money;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.annotations.AntiFraud;
+import edu.ucsal.fiadopay.plugins.spi.AntiFraudRule;
+import edu.ucsal.fiadopay.util.SlidingWindowCounter;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+// Base das regras de velocidade: conta e soma os pagamentos de cada chave na janela declarada em @AntiFraud,
+// só em memória. Os limites da anotação podem ser trocados em fiadopay.antifraud.rules.<name>.*
+// (max-count, threshold, window). Tentativas recusadas também contam, como numa operadora.
+// Desligadas por padrão (fiadopay.antifraud.rules.<name>.enabled=true liga): os limites são de produção
+// e recusariam a carga de um simulador apontado para um merchant só.
+abstract class VelocityRule<K> implements AntiFraudRule {
+
+    private static final int BUCKETS = 12;
+
+    private final String name;
+    private final boolean enabled;
+    private final long maxCount;
+    private final long maxSumMinor;
+    private final SlidingWindowCounter<K> counter;
+
+    VelocityRule(Environment env) {
+        AntiFraud spec = getClass().getAnnotation(AntiFraud.class);
+        String prefix = "fiadopay.antifraud.rules." + spec.name() + ".";
+        this.name = spec.name();
+        this.enabled = env.getProperty(prefix + "enabled", Boolean.class, false);
+        this.maxCount = env.getProperty(prefix + "max-count", Long.class, spec.maxCount());
+        double threshold = env.getProperty(prefix + "threshold", Double.class, spec.threshold());
+        this.maxSumMinor = threshold >= Long.MAX_VALUE / 100.0 ? Long.MAX_VALUE : Money.toMinor(threshold);
+        Duration window = env.getProperty(prefix + "window", Duration.class, Duration.ofSeconds(spec.windowSeconds()));
+        int maxKeys = env.getProperty("fiadopay.antifraud.max-keys", Integer.class, 100_000);
+        this.counter = new SlidingWindowCounter<>(window, BUCKETS, maxKeys);
+    }
+
+    // null = pagamento fora do escopo da regra
+    abstract K key(Payment p);
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean approve(Payment p, PaymentRequest req) {
+        if (!enabled || p == null) return true;
+        K key = key(p);
+        if (key == null) return true;
+        var totals = counter.add(key, p.getAmountMinor());
+        return totals.count() <= maxCount && totals.sum() <= maxSumMinor;
+    }
+}
@@ -0,0 +1,14 @@
+package edu.ucsal.fiadopay.plugins.spi;
+
+import edu.ucsal.fiadopay.domain.Payment;
+
+import java.util.SplittableRandom;
+
+// Implementações viram beans anotados com @PaymentMethod("<método>"); o PluginRegistry as encontra e o
+// SettlementSimulator usa a do método no lugar de fiadopay.settlement.methods.<método>.
+public interface SettlementModel {
+    // Todo sorteio deve vir de "random" (semeado por pagamento), para a execução ser reproduzível
+    Outcome decide(Payment payment, SplittableRandom random);
+
+    record Outcome(long delayMs, boolean approved) {}
+}
@@ -0,0 +1,11 @@
+package edu.ucsal.fiadopay.plugins.spi;
+
+import java.net.URI;
+
+public interface WebhookTransport {
+    // Lança exceção quando a entrega falha, para o dispatcher reagendar a tentativa
+    void deliver(URI target, String eventType, String signature, byte[] body) throws Exception;
+
+    // Chamado ao cadastrar o merchant; IllegalArgumentException recusa a webhookUrl
+    default void validate(URI target) { }
+}
@@ -0,0 +1,16 @@
+package edu.ucsal.fiadopay.repo;
+import edu.ucsal.fiadopay.domain.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+  List<LedgerEntry> findByCompactedFalseAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable page);
+
+  @Modifying
+  @Query("update LedgerEntry e set e.compacted = true where e.id in :ids")
+  int markCompacted(@Param("ids") Collection<Long> ids);
+}
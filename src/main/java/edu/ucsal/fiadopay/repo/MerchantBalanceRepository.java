@@ -0,0 +1,7 @@
+package edu.ucsal.fiadopay.repo;
+import edu.ucsal.fiadopay.domain.MerchantBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+public interface MerchantBalanceRepository extends JpaRepository<MerchantBalance, Long> {
+  Optional<MerchantBalance> findByMerchantIdAndCurrency(Long merchantId, String currency);
+}
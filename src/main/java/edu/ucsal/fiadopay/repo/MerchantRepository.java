@@ -1,8 +1,16 @@
 package edu.ucsal.fiadopay.repo;
 import edu.ucsal.fiadopay.domain.Merchant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 public interface MerchantRepository extends JpaRepository<Merchant, Long> {
   Optional<Merchant> findByClientId(String clientId);
   boolean existsByName(String name);
+
+  @Query("select m.status from Merchant m where m.id = :id")
+  Optional<Merchant.Status> findStatusById(@Param("id") Long id);
+
+  @Query("select m.webhookUrl from Merchant m where m.id = :id")
+  Optional<String> findWebhookUrlById(@Param("id") Long id);
 }
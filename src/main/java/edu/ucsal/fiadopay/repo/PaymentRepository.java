@@ -1,7 +1,42 @@
 package edu.ucsal.fiadopay.repo;
 import edu.ucsal.fiadopay.domain.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 public interface PaymentRepository extends JpaRepository<Payment, String> {
-  Optional<Payment> findByIdempotencyKeyAndMerchantId(String ik, Long mid);
+  String VIEW = "select new edu.ucsal.fiadopay.repo.PaymentView(p.id, p.status, p.method, p.amountMinor, p.currency,"
+      + " p.installments, p.monthlyInterest, p.totalWithInterestMinor) from Payment p ";
+
+  @Query(VIEW + "where p.id = :id")
+  Optional<PaymentView> findViewById(@Param("id") String id);
+
+  @Query(VIEW + "where p.idempotencyKey = :ik and p.merchantId = :mid")
+  Optional<PaymentView> findViewByIdempotencyKeyAndMerchantId(@Param("ik") String ik, @Param("mid") Long mid);
+
+  // Transição condicional: um UPDATE de duas colunas, 0 linhas se outro fluxo mudou o status antes.
+  // Limpa o contexto para nenhuma cópia gerenciada do pagamento ser regravada por cima no flush.
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Payment p set p.status = :to, p.updatedAt = :at where p.id = :id and p.status = :from")
+  int updateStatus(@Param("id") String id, @Param("from") Payment.Status from,
+                   @Param("to") Payment.Status to, @Param("at") Instant at);
+
+  // Estado final, parado desde antes do corte e sem webhook pendente
+  @Query("""
+      select p from Payment p
+      where p.status in :statuses and p.updatedAt < :cutoff
+        and not exists (select 1 from WebhookDelivery d where d.paymentId = p.id and d.delivered = false and d.dead = false)
+      order by p.id""")
+  List<Payment> findArchivable(@Param("statuses") Collection<Payment.Status> statuses,
+                               @Param("cutoff") Instant cutoff, Pageable page);
+
+  // Repete o corte: um pagamento alterado depois da seleção (ex.: estorno) fica na tabela
+  @Modifying
+  @Query("delete from Payment p where p.id in :ids and p.updatedAt < :cutoff")
+  int deleteArchived(@Param("ids") Collection<String> ids, @Param("cutoff") Instant cutoff);
 }
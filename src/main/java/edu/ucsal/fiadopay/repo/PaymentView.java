@@ -0,0 +1,14 @@
+package edu.ucsal.fiadopay.repo;
+
+import edu.ucsal.fiadopay.domain.Payment;
+
+// Só as colunas que a API devolve: lido sem entidade gerenciada, sem snapshot para dirty checking
+public record PaymentView(String id,
+                          Payment.Status status,
+                          String method,
+                          long amountMinor,
+                          String currency,
+                          Integer installments,
+                          Double monthlyInterest,
+                          long totalWithInterestMinor) {
+}
@@ -1,4 +1,37 @@
 package edu.ucsal.fiadopay.repo;
 import edu.ucsal.fiadopay.domain.WebhookDelivery;
 import org.springframework.data.jpa.repository.JpaRepository;
-public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> { }
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+  long countByPaymentId(String paymentId);
+
+  List<WebhookDelivery> findByDeliveredFalseAndDeadFalse();
+
+  boolean existsByIdAndDeliveredFalseAndDeadFalse(Long id);
+
+  List<WebhookDelivery> findByPaymentIdIn(Collection<String> paymentIds);
+
+  @Modifying
+  // Só entregas encerradas (entregues ou mortas) de pagamentos que já saíram da tabela: quem ficou (ex.: estornado
+  // no meio do lote) mantém as suas, porque a sequência do próximo evento é contada a partir delas
+  @Query("delete from WebhookDelivery d where d.paymentId in :ids and (d.delivered = true or d.dead = true)"
+      + " and not exists (select 1 from Payment p where p.id = d.paymentId)")
+  int deleteDeliveredOfArchived(@Param("ids") Collection<String> paymentIds);
+
+  @Transactional
+  @Modifying
+  // delivered só vai de false para true: uma tentativa falha atrasada não desfaz uma entrega concluída.
+  // A falha que completa maxAttempts tentativas marca a entrega como morta.
+  @Query("update WebhookDelivery d set d.attempts = d.attempts + 1, d.lastAttemptAt = :at,"
+      + " d.delivered = case when d.delivered = true or :delivered = true then true else false end,"
+      + " d.dead = case when d.delivered = false and :delivered = false and d.attempts + 1 >= :maxAttempts"
+      + " then true else d.dead end where d.id = :id")
+  int recordAttempt(@Param("id") Long id, @Param("at") Instant at, @Param("delivered") boolean delivered,
+                    @Param("maxAttempts") int maxAttempts);
+}
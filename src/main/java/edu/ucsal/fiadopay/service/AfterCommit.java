@@ -0,0 +1,33 @@
+package edu.ucsal.fiadopay.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+final class AfterCommit {
+
+    private AfterCommit() { }
+
+    // Roda depois do commit da transação corrente, ou já, se não houver transação
+    static void run(Runnable action) {
+        run(action, () -> { });
+    }
+
+    // Como run(action), mas roda otherwise se a transação for desfeita (ex.: devolver um recurso reservado)
+    static void run(Runnable action, Runnable otherwise) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) otherwise.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.config.SettlementProperties;
+import edu.ucsal.fiadopay.domain.Money;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.spi.SettlementModel;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Taxa de falha: override do merchant > maior faixa de valor atingida > taxa do método
+final class ConfiguredSettlementModel implements SettlementModel {
+
+    private final LatencyModel latency;
+    private final double failureRate;
+    private final long[] bandAboveMinor;
+    private final double[] bandRates;
+    private final Map<Long, Double> merchantRates;
+
+    ConfiguredSettlementModel(SettlementProperties.Method cfg, long defaultDelayMs, double defaultFailureRate) {
+        this.latency = LatencyModel.of(cfg.latency(), defaultDelayMs);
+        this.failureRate = cfg.failureRate() != null ? cfg.failureRate() : defaultFailureRate;
+        this.merchantRates = cfg.merchantFailureRates() == null ? Map.of() : Map.copyOf(cfg.merchantFailureRates());
+
+        List<SettlementProperties.AmountBand> bands = cfg.amountBands() == null ? List.of() : cfg.amountBands().stream()
+                .sorted(Comparator.comparing(SettlementProperties.AmountBand::above).reversed())
+                .toList();
+        this.bandAboveMinor = bands.stream().mapToLong(b -> Money.toMinor(b.above())).toArray();
+        this.bandRates = bands.stream().mapToDouble(SettlementProperties.AmountBand::failureRate).toArray();
+    }
+
+    ConfiguredSettlementModel(long delayMs, double failureRate) {
+        this(new SettlementProperties.Method(null, failureRate, null, null), delayMs, failureRate);
+    }
+
+    @Override
+    public Outcome decide(Payment payment, SplittableRandom random) {
+        boolean approved = random.nextDouble() >= failureRate(payment);
+        long delayMs = Math.max(0, latency.sampleMs(random));
+        return new Outcome(delayMs, approved);
+    }
+
+    private double failureRate(Payment p) {
+        Double byMerchant = merchantRates.get(p.getMerchantId());
+        if (byMerchant != null) return byMerchant;
+        for (int i = 0; i < bandAboveMinor.length; i++) {
+            if (p.getAmountMinor() > bandAboveMinor[i]) return bandRates[i];
+        }
+        return failureRate;
+    }
+}
@@ -0,0 +1,74 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.config.SettlementProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+sealed interface LatencyModel {
+
+    long sampleMs(SplittableRandom random);
+
+    record Fixed(long ms) implements LatencyModel {
+        public long sampleMs(SplittableRandom random) {
+            return ms;
+        }
+    }
+
+    record Uniform(long minMs, long maxMs) implements LatencyModel {
+        public long sampleMs(SplittableRandom random) {
+            return maxMs <= minMs ? minMs : random.nextLong(minMs, maxMs + 1);
+        }
+    }
+
+    record LogNormal(double medianMs, double sigma) implements LatencyModel {
+        public long sampleMs(SplittableRandom random) {
+            return Math.round(medianMs * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    // Reamostra latências gravadas (ex.: exportadas de produção), preservando a distribuição empírica
+    record Replay(long[] samplesMs) implements LatencyModel {
+        public long sampleMs(SplittableRandom random) {
+            return samplesMs[random.nextInt(samplesMs.length)];
+        }
+    }
+
+    static LatencyModel of(SettlementProperties.Latency cfg, long defaultMs) {
+        if (cfg == null || cfg.kind() == null) return new Fixed(defaultMs);
+        return switch (cfg.kind()) {
+            case FIXED -> new Fixed(cfg.fixedMs() != null ? cfg.fixedMs() : defaultMs);
+            case UNIFORM -> new Uniform(required(cfg.minMs(), "min-ms"), required(cfg.maxMs(), "max-ms"));
+            case LOGNORMAL -> new LogNormal(required(cfg.medianMs(), "median-ms"), required(cfg.sigma(), "sigma"));
+            case REPLAY -> new Replay(samples(cfg));
+        };
+    }
+
+    private static long[] samples(SettlementProperties.Latency cfg) {
+        List<Long> inline = cfg.samplesMs();
+        long[] out;
+        if (cfg.replayFile() != null) {
+            try (var lines = Files.lines(Path.of(cfg.replayFile()))) {
+                out = lines.map(String::trim)
+                        .filter(l -> !l.isEmpty() && !l.startsWith("#"))
+                        .mapToLong(Long::parseLong)
+                        .toArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read latency replay file " + cfg.replayFile(), e);
+            }
+        } else {
+            out = inline == null ? new long[0] : inline.stream().mapToLong(Long::longValue).toArray();
+        }
+        if (out.length == 0) throw new IllegalArgumentException("Replay latency model needs replay-file or samples-ms");
+        return out;
+    }
+
+    private static <T> T required(T value, String name) {
+        if (value == null) throw new IllegalArgumentException("Latency model is missing " + name);
+        return value;
+    }
+}
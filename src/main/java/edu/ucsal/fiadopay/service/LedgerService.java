@@ -0,0 +1,130 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.domain.LedgerEntry;
+import edu.ucsal.fiadopay.domain.MerchantBalance;
+import edu.ucsal.fiadopay.domain.Money;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.repo.LedgerEntryRepository;
+import edu.ucsal.fiadopay.repo.MerchantBalanceRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Razão de partida dobrada dos merchants.
+// A fonte da verdade são os LedgerEntry; o saldo consultado vem de um LongAdder por merchant e moeda
+// (carregado no boot e somado a cada lançamento confirmado), então a consulta é O(1) e sem contenção.
+// A compactação periódica consolida os lançamentos em MerchantBalance, o que mantém o boot barato.
+@Service
+public class LedgerService {
+
+    public static final String CLEARING_ACCOUNT = "clearing";
+    private static final int BATCH = 5000;
+
+    private record BalanceKey(long merchantId, String currency) {}
+
+    private final LedgerEntryRepository entries;
+    private final MerchantBalanceRepository balances;
+    private final Map<Long, Map<String, LongAdder>> live = new ConcurrentHashMap<>();
+
+    public LedgerService(LedgerEntryRepository entries, MerchantBalanceRepository balances) {
+        this.entries = entries;
+        this.balances = balances;
+    }
+
+    // Roda antes do servidor aceitar requisições: saldo compactado + lançamentos ainda não compactados
+    @PostConstruct
+    void load() {
+        for (MerchantBalance b : balances.findAll()) {
+            adder(b.getMerchantId(), b.getCurrency()).add(b.getBalanceMinor());
+        }
+        long after = 0;
+        List<LedgerEntry> page;
+        while (!(page = entries.findByCompactedFalseAndIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, BATCH))).isEmpty()) {
+            for (LedgerEntry e : page) {
+                adder(e.getMerchantId(), e.getCurrency()).add(e.merchantDelta());
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    public void recordCapture(Payment p) {
+        post(p, LedgerEntry.Type.CAPTURE, CLEARING_ACCOUNT, merchantAccount(p.getMerchantId()));
+    }
+
+    public void recordRefund(Payment p) {
+        post(p, LedgerEntry.Type.REFUND, merchantAccount(p.getMerchantId()), CLEARING_ACCOUNT);
+    }
+
+    public Map<String, Money> balances(long merchantId) {
+        var byCurrency = live.get(merchantId);
+        if (byCurrency == null) return Map.of();
+        Map<String, Money> out = new TreeMap<>();
+        byCurrency.forEach((currency, sum) -> out.put(currency, Money.ofMinor(sum.sum(), currency)));
+        return out;
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.ledger.compaction-interval-ms:5000}")
+    @Transactional
+    public void compact() {
+        var page = entries.findByCompactedFalseAndIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, BATCH));
+        if (page.isEmpty()) return;
+
+        Map<BalanceKey, Long> deltas = new HashMap<>();
+        List<Long> ids = new ArrayList<>(page.size());
+        for (LedgerEntry e : page) {
+            deltas.merge(new BalanceKey(e.getMerchantId(), e.getCurrency()), e.merchantDelta(), Long::sum);
+            ids.add(e.getId());
+        }
+
+        var now = Instant.now();
+        deltas.forEach((key, delta) -> {
+            var row = balances.findByMerchantIdAndCurrency(key.merchantId(), key.currency())
+                    .orElseGet(() -> MerchantBalance.builder()
+                            .merchantId(key.merchantId())
+                            .currency(key.currency())
+                            .balanceMinor(0)
+                            .build());
+            row.setBalanceMinor(row.getBalanceMinor() + delta);
+            row.setCompactedAt(now);
+            balances.save(row);
+        });
+        entries.markCompacted(ids);
+    }
+
+    private void post(Payment p, LedgerEntry.Type type, String debit, String credit) {
+        var entry = entries.save(LedgerEntry.builder()
+                .merchantId(p.getMerchantId())
+                .paymentId(p.getId())
+                .type(type)
+                .debitAccount(debit)
+                .creditAccount(credit)
+                .amountMinor(p.getAmountMinor())
+                .currency(p.getCurrency())
+                .createdAt(Instant.now())
+                .compacted(false)
+                .build());
+
+        // O saldo em memória só anda depois do commit, para nunca refletir um lançamento desfeito
+        AfterCommit.run(() -> adder(entry.getMerchantId(), entry.getCurrency()).add(entry.merchantDelta()));
+    }
+
+    private LongAdder adder(long merchantId, String currency) {
+        return live.computeIfAbsent(merchantId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(currency, c -> new LongAdder());
+    }
+
+    private static String merchantAccount(long merchantId) {
+        return "merchant:" + merchantId;
+    }
+}
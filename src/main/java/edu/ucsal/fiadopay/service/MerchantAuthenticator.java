@@ -0,0 +1,31 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+@Component
+public class MerchantAuthenticator {
+
+    private final MerchantRepository merchants;
+
+    public MerchantAuthenticator(MerchantRepository merchants) {
+        this.merchants = merchants;
+    }
+
+    // Devolve o id do merchant; só o status é lido do banco, sem carregar segredo nem webhookUrl
+    public long authenticate(String auth){
+        if (auth == null || !auth.startsWith("Bearer FAKE-")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        var raw = auth.substring("Bearer FAKE-".length());
+        long id;
+        try { id = Long.parseLong(raw); }
+        catch (NumberFormatException ex) { throw new ResponseStatusException(HttpStatus.UNAUTHORIZED); }
+        var status = merchants.findStatusById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        if (status != Merchant.Status.ACTIVE) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        return id;
+    }
+}
@@ -0,0 +1,90 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.archive.PaymentArchive;
+import edu.ucsal.fiadopay.config.ArchiveProperties;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Move pagamentos finalizados há mais de fiadopay.archive.max-age, com suas entregas, para o PaymentArchive.
+// O segmento é gravado (e fica visível para leitura) antes de apagar as linhas; se o processo cair no meio,
+// o lote é arquivado de novo na próxima rodada e a cópia mais recente prevalece.
+@Service
+public class PaymentArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentArchiver.class);
+    private static final Set<Payment.Status> TERMINAL = EnumSet.of(
+            Payment.Status.APPROVED, Payment.Status.DECLINED, Payment.Status.REFUNDED, Payment.Status.EXPIRED);
+
+    private final ArchiveProperties props;
+    private final PaymentArchive archive;
+    private final PaymentRepository payments;
+    private final WebhookDeliveryRepository deliveries;
+    private final TransactionTemplate tx;
+
+    public PaymentArchiver(ArchiveProperties props,
+                           PaymentArchive archive,
+                           PaymentRepository payments,
+                           WebhookDeliveryRepository deliveries,
+                           TransactionTemplate tx) {
+        this.props = props;
+        this.archive = archive;
+        this.payments = payments;
+        this.deliveries = deliveries;
+        this.tx = tx;
+    }
+
+    @Scheduled(initialDelayString = "${fiadopay.archive.interval-ms:60000}",
+               fixedDelayString = "${fiadopay.archive.interval-ms:60000}")
+    public void archiveOld() {
+        if (!props.enabled()) return;
+        Instant cutoff = Instant.now().minus(props.maxAge());
+        int total = 0;
+        List<Payment> batch;
+        do {
+            batch = payments.findArchivable(TERMINAL, cutoff, PageRequest.of(0, props.batchSize()));
+            if (batch.isEmpty()) break;
+            total += archiveBatch(batch, cutoff);
+        } while (batch.size() == props.batchSize());
+        if (total > 0) log.info("Arquivados {} pagamentos anteriores a {}", total, cutoff);
+        // Um dia está fechado quando o corte já passou dele: o que foi criado nele e finalizou já foi arquivado
+        try {
+            archive.compact(LocalDate.ofInstant(cutoff, ZoneOffset.UTC));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao compactar segmentos de arquivo", e);
+        }
+    }
+
+    private int archiveBatch(List<Payment> batch, Instant cutoff) {
+        var ids = batch.stream().map(Payment::getId).toList();
+        var byPayment = deliveries.findByPaymentIdIn(ids).stream()
+                .collect(Collectors.groupingBy(WebhookDelivery::getPaymentId));
+        try {
+            archive.append(batch, byPayment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar segmento de arquivo", e);
+        }
+        return tx.execute(status -> {
+            int archived = payments.deleteArchived(ids, cutoff);
+            deliveries.deleteDeliveredOfArchived(ids);
+            return archived;
+        });
+    }
+}
@@ -0,0 +1,253 @@
+package edu.ucsal.fiadopay.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsal.fiadopay.domain.Payment;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Stream SSE de mudanças de status por merchant (GET /fiadopay/gateway/events), alternativa push aos webhooks.
+// Cada merchant tem um buffer circular de replay (Last-Event-ID) e cada conexão uma fila limitada:
+// se o cliente não acompanha, a fila é descartada e trocada por um marcador "resync".
+// Conexões ociosas não ocupam thread; o envio roda em virtual threads só enquanto há fila.
+// O canal de um merchant sem assinantes é descartado no segundo heartbeat seguido em que continua vazio:
+// reconexões dentro desse intervalo ainda recebem o replay; depois dele, recebem "resync".
+@Service
+public class PaymentEventStream {
+
+    private static final String EVENT_TYPE = "payment.updated";
+    private static final long NO_REPLAY = -1;
+    private static final long UNKNOWN_EVENT_ID = -2;
+
+    private final ObjectMapper mapper;
+    private final TaskExecutor sseExecutor;
+    private final MerchantAuthenticator authenticator;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    @Value("${fiadopay.events.replay-size:256}")
+    private int replaySize;
+
+    @Value("${fiadopay.events.queue-size:64}")
+    private int queueSize;
+
+    @Value("${fiadopay.events.stream-timeout:30m}")
+    private Duration streamTimeout;
+
+    public PaymentEventStream(ObjectMapper mapper,
+                              @Qualifier("sseExecutor") TaskExecutor sseExecutor,
+                              MerchantAuthenticator authenticator) {
+        this.mapper = mapper;
+        this.sseExecutor = sseExecutor;
+        this.authenticator = authenticator;
+    }
+
+    public SseEmitter subscribe(String auth, String lastEventId) {
+        long merchantId = authenticator.authenticate(auth);
+        long lastSeq = parseEventId(lastEventId);
+        var emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber sub;
+        do {
+            // Um canal descartado pelo heartbeat entre o get e o subscribe recusa o assinante; pega o novo
+            var channel = channels.computeIfAbsent(merchantId, id -> new Channel(replaySize));
+            sub = new Subscriber(emitter, channel);
+        } while (!sub.channel.subscribe(sub, lastSeq, queueSize));
+
+        var subscribed = sub;
+        emitter.onCompletion(() -> subscribed.channel.subscribers.remove(subscribed));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribed.channel.subscribers.remove(subscribed));
+
+        schedule(sub);
+        return emitter;
+    }
+
+    public void publish(Payment p) {
+        var channel = channels.get(p.getMerchantId());
+        if (channel == null) return;
+
+        String data;
+        try {
+            data = mapper.writeValueAsString(Map.of(
+                    "paymentId", p.getId(),
+                    "status", p.getStatus().name(),
+                    "amount", p.getAmount(),
+                    "merchantId", p.getMerchantId(),
+                    // Instante da mudança de status, o mesmo do webhook; não o da publicação
+                    "occurredAt", p.getUpdatedAt().toString()
+            ));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (Subscriber sub : channel.append(data, queueSize)) {
+            schedule(sub);
+        }
+    }
+
+    // Comentário periódico mantém proxies abertos e descobre conexões mortas
+    @Scheduled(fixedDelayString = "${fiadopay.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (var entry : channels.entrySet()) {
+            Channel channel = entry.getValue();
+            if (channel.retireIfIdle()) {
+                channels.remove(entry.getKey(), channel);
+                continue;
+            }
+            for (Subscriber sub : channel.subscribers) {
+                if (sub.offerHeartbeat()) schedule(sub);
+            }
+        }
+    }
+
+    int channelCount() {
+        return channels.size();
+    }
+
+    private void schedule(Subscriber sub) {
+        if (sub.draining.compareAndSet(false, true)) {
+            sseExecutor.execute(() -> drain(sub));
+        }
+    }
+
+    private void drain(Subscriber sub) {
+        try {
+            Item item;
+            while ((item = sub.next()) != null) {
+                if (item == Item.HEARTBEAT) {
+                    sub.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else {
+                    sub.emitter.send(SseEmitter.event()
+                            .id(Long.toString(item.seq))
+                            .name(item.name)
+                            .data(item.data, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            sub.channel.subscribers.remove(sub);
+            sub.emitter.completeWithError(e);
+        }
+    }
+
+    // Id ilegível não vira 0 (que reenviaria o buffer inteiro): o cliente recebe um resync a partir do evento atual
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return NO_REPLAY;
+        try {
+            long seq = Long.parseLong(lastEventId.trim());
+            return seq >= 0 ? seq : UNKNOWN_EVENT_ID;
+        } catch (NumberFormatException e) {
+            return UNKNOWN_EVENT_ID;
+        }
+    }
+
+    private record Item(long seq, String name, String data) {
+        static final Item HEARTBEAT = new Item(0, null, null);
+
+        static Item resync(long lastSeq) {
+            return new Item(lastSeq, "resync", "{\"lastEventId\":" + lastSeq + "}");
+        }
+    }
+
+    private static final class Channel {
+        private final Item[] ring;
+        private long nextSeq = 1;
+        private boolean idle;
+        private boolean retired;
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+        Channel(int size) {
+            this.ring = new Item[size];
+        }
+
+        // Registro e replay sob o mesmo lock da publicação: nenhum evento fica entre os dois
+        synchronized boolean subscribe(Subscriber sub, long lastSeq, int queueSize) {
+            if (retired) return false;
+            idle = false;
+            if (lastSeq == UNKNOWN_EVENT_ID) {
+                sub.offer(Item.resync(nextSeq - 1), queueSize);
+            } else if (lastSeq >= 0) {
+                long oldest = Math.max(1, nextSeq - ring.length);
+                if (lastSeq + 1 < oldest || lastSeq >= nextSeq) {
+                    sub.offer(Item.resync(oldest - 1), queueSize);
+                    lastSeq = oldest - 1;
+                }
+                for (long s = lastSeq + 1; s < nextSeq; s++) {
+                    sub.offer(ring[(int) (s % ring.length)], queueSize);
+                }
+            }
+            subscribers.add(sub);
+            return true;
+        }
+
+        // Vazio em dois heartbeats seguidos: some do mapa, e quem chegar depois cria um canal novo
+        synchronized boolean retireIfIdle() {
+            if (!subscribers.isEmpty()) {
+                idle = false;
+            } else if (idle) {
+                retired = true;
+            } else {
+                idle = true;
+            }
+            return retired;
+        }
+
+        synchronized List<Subscriber> append(String data, int queueSize) {
+            var item = new Item(nextSeq, EVENT_TYPE, data);
+            ring[(int) (nextSeq % ring.length)] = item;
+            nextSeq++;
+            List<Subscriber> woken = new ArrayList<>(subscribers.size());
+            for (Subscriber sub : subscribers) {
+                if (sub.offer(item, queueSize)) woken.add(sub);
+            }
+            return woken;
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Channel channel;
+        final AtomicBoolean draining = new AtomicBoolean();
+        private final ArrayDeque<Item> queue = new ArrayDeque<>(4);
+
+        Subscriber(SseEmitter emitter, Channel channel) {
+            this.emitter = emitter;
+            this.channel = channel;
+        }
+
+        // Fila cheia: descarta o atraso inteiro e avisa o cliente para ressincronizar a partir deste ponto
+        synchronized boolean offer(Item item, int capacity) {
+            if (queue.size() >= capacity) {
+                queue.clear();
+                queue.add(Item.resync(item.seq - 1));
+            }
+            queue.add(item);
+            return !draining.get();
+        }
+
+        synchronized boolean offerHeartbeat() {
+            if (!queue.isEmpty()) return false;
+            queue.add(Item.HEARTBEAT);
+            return true;
+        }
+
+        synchronized Item next() {
+            Item item = queue.poll();
+            if (item == null) draining.set(false);
+            return item;
+        }
+    }
+}
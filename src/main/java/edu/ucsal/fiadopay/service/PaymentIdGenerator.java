@@ -0,0 +1,5 @@
+package edu.ucsal.fiadopay.service;
+
+public interface PaymentIdGenerator {
+    String nextId();
+}
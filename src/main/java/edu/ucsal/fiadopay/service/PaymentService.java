@@ -1,79 +1,89 @@
 package edu.ucsal.fiadopay.service;
 
+import edu.ucsal.fiadopay.archive.PaymentArchive;
 import edu.ucsal.fiadopay.controller.PaymentRequest;
 import edu.ucsal.fiadopay.controller.PaymentResponse;
-import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.domain.Money;
 import edu.ucsal.fiadopay.domain.Payment;
 import edu.ucsal.fiadopay.plugins.PluginRegistry;
-import edu.ucsal.fiadopay.repo.MerchantRepository;
 import edu.ucsal.fiadopay.repo.PaymentRepository;
+import edu.ucsal.fiadopay.repo.PaymentView;
+import edu.ucsal.fiadopay.util.FairScheduler;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class PaymentService {
 
-    private final MerchantRepository merchants;
+    private final MerchantAuthenticator authenticator;
     private final PaymentRepository payments;
     private final PluginRegistry pluginRegistry;
-    private final ThreadPoolTaskExecutor paymentExecutor;
+    private final FairScheduler paymentLanes;
     private final WebhookDispatcher webhookDispatcher;
-
-    @Value("${fiadopay.processing-delay-ms}") long delayMs;
-    @Value("${fiadopay.failure-rate}") double failRate;
-
-    public PaymentService(MerchantRepository merchants,
+    private final PaymentIdGenerator idGenerator;
+    private final SettlementNotifier settlements;
+    private final PaymentEventStream paymentEvents;
+    private final LedgerService ledger;
+    private final TransactionTemplate tx;
+    private final SettlementSimulator simulator;
+    private final TaskScheduler taskScheduler;
+    private final PaymentArchive archive;
+
+    public PaymentService(MerchantAuthenticator authenticator,
                           PaymentRepository payments,
                           PluginRegistry pluginRegistry,
-                          @Qualifier("paymentExecutor")
-                          ThreadPoolTaskExecutor paymentExecutor,
-                          WebhookDispatcher webhookDispatcher) {
-        this.merchants = merchants;
+                          @Qualifier("paymentFairScheduler")
+                          FairScheduler paymentLanes,
+                          WebhookDispatcher webhookDispatcher,
+                          PaymentIdGenerator idGenerator,
+                          SettlementNotifier settlements,
+                          PaymentEventStream paymentEvents,
+                          LedgerService ledger,
+                          TransactionTemplate tx,
+                          SettlementSimulator simulator,
+                          TaskScheduler taskScheduler,
+                          PaymentArchive archive) {
+        this.authenticator = authenticator;
         this.payments = payments;
         this.pluginRegistry = pluginRegistry;
-        this.paymentExecutor = paymentExecutor;
+        this.paymentLanes = paymentLanes;
         this.webhookDispatcher = webhookDispatcher;
-    }
-
-    private Merchant merchantFromAuth(String auth){
-        if (auth == null || !auth.startsWith("Bearer FAKE-")) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-        }
-        var raw = auth.substring("Bearer FAKE-".length());
-        long id;
-        try { id = Long.parseLong(raw); }
-        catch (NumberFormatException ex) { throw new ResponseStatusException(HttpStatus.UNAUTHORIZED); }
-        var merchant = merchants.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-        if (merchant.getStatus() != Merchant.Status.ACTIVE) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-        return merchant;
+        this.idGenerator = idGenerator;
+        this.settlements = settlements;
+        this.paymentEvents = paymentEvents;
+        this.ledger = ledger;
+        this.tx = tx;
+        this.simulator = simulator;
+        this.taskScheduler = taskScheduler;
+        this.archive = archive;
     }
 
     @Transactional
     public PaymentResponse createPayment(String auth, String idemKey, PaymentRequest req){
-        var merchant = merchantFromAuth(auth);
-        var mid = merchant.getId();
+        long mid = authenticator.authenticate(auth);
 
         if (idemKey != null) {
-            var existing = payments.findByIdempotencyKeyAndMerchantId(idemKey, mid);
+            var existing = payments.findViewByIdempotencyKeyAndMerchantId(idemKey, mid);
             if (existing.isPresent()) return toResponse(existing.get());
         }
 
         String method = req.method() == null ? "" : req.method().toUpperCase();
 
         var payment = Payment.builder()
-                .id("pay_" + UUID.randomUUID().toString().substring(0,8))
+                .id(idGenerator.nextId())
                 .merchantId(mid)
                 .method(method)
-                .amount(req.amount())
-                .currency(req.currency())
+                .amount(Money.of(req.amount(), req.currency()))
                 .installments(req.installments() == null ? 1 : req.installments())
                 .status(Payment.Status.PENDING)
                 .createdAt(Instant.now())
@@ -87,54 +97,146 @@ public class PaymentService {
 
         plugin.enrich(payment, req);
 
-        boolean approved = pluginRegistry.rules().stream().allMatch(rule -> {
-            try { return rule.approve(payment, req); } catch (Exception e) { return false; }
-        });
-        if (!approved) {
-            payment.setStatus(Payment.Status.DECLINED);
-            payment.setUpdatedAt(Instant.now());
+        // A vaga na fila do merchant é reservada já na criação e fica presa até a liquidação entrar na fila:
+        // com a fila cheia o cliente recebe 429 agora, em vez de a liquidação ser reagendada sem limite
+        FairScheduler.Reservation slot;
+        try {
+            slot = paymentLanes.reserve(mid);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many pending operations for merchant");
+        }
+        try {
+            // Todas as regras avaliam, sem parar na primeira recusa: as de velocidade contam cada tentativa,
+            // e a contagem não pode depender da ordem em que as regras foram registradas
+            boolean approved = true;
+            for (var rule : pluginRegistry.rules()) {
+                boolean ok;
+                try { ok = rule.approve(payment, req); } catch (Exception e) { ok = false; }
+                approved &= ok;
+            }
+            if (!approved) {
+                payment.setStatus(Payment.Status.DECLINED);
+                payment.setUpdatedAt(Instant.now());
+                payments.save(payment);
+                // Recusados pelo antifraude já nascem com status final; só o webhook é enviado
+                var response = toResponse(payment);
+                AfterCommit.run(() -> settleLater(slot, payment, false, 0), slot::cancel);
+                return response;
+            }
+
             payments.save(payment);
-            paymentExecutor.submit(() -> processAndWebhook(payment.getId()));
-            return toResponse(payment);
+            var outcome = simulator.decide(payment);
+            var response = toResponse(payment);
+            // Agenda só depois do commit: com latência 0 a liquidação não pode chegar antes da linha existir.
+            // Registrado por último: daqui em diante quem devolve a vaga num rollback é o AfterCommit
+            AfterCommit.run(() -> settleLater(slot, payment, outcome.approved(), outcome.delayMs()), slot::cancel);
+            return response;
+        } catch (RuntimeException e) {
+            slot.cancel();
+            throw e;
         }
+    }
+
+    private void settleLater(FairScheduler.Reservation slot, Payment payment, boolean approved, long delayMs){
+        taskScheduler.schedule(() -> slot.submit(() -> processAndWebhook(payment, approved)),
+                Instant.now().plusMillis(delayMs));
+    }
 
-        payments.save(payment);
-        paymentExecutor.submit(() -> processAndWebhook(payment.getId()));
-        return toResponse(payment);
+    // Chamado fora da transação de createPayment, depois do commit
+    public CompletableFuture<PaymentResponse> awaitSettlement(PaymentResponse created){
+        if (!Payment.Status.PENDING.name().equals(created.status())) {
+            return CompletableFuture.completedFuture(created);
+        }
+        var settled = settlements.await(created.id());
+        // A liquidação pode ter terminado entre a criação e o registro acima
+        payments.findViewById(created.id())
+                .filter(v -> v.status() != Payment.Status.PENDING)
+                .ifPresent(v -> settlements.settled(toResponse(v)));
+        return settled;
+    }
+
+    public void abandonSettlementWait(String paymentId, CompletableFuture<PaymentResponse> settled){
+        settlements.abandon(paymentId, settled);
     }
 
     public PaymentResponse getPayment(String id){
-        return toResponse(payments.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+        return payments.findViewById(id).map(this::toResponse)
+                .or(() -> archive.find(id).map(this::toResponse))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @Transactional
     public java.util.Map<String,Object> refund(String auth, String paymentId){
-        var merchant = merchantFromAuth(auth);
-        var p = payments.findById(paymentId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        if (!merchant.getId().equals(p.getMerchantId())) throw new ResponseStatusException(HttpStatus.FORBIDDEN);
-
+        long mid = authenticator.authenticate(auth);
+        var p = payments.findById(paymentId).orElseThrow(() -> notRefundable(mid, paymentId));
+        if (mid != p.getMerchantId()) throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+
+        // A vaga na fila do merchant é reservada antes de qualquer escrita, para o 429 sair já;
+        // o evento só entra na fila depois do commit, e a vaga volta se a transação for desfeita
+        FairScheduler.Reservation slot;
+        try {
+            slot = paymentLanes.reserve(p.getMerchantId());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many pending operations for merchant");
+        }
+        AfterCommit.run(() -> {
+            // Um estorno que vence a liquidação é o status final de quem espera com ?wait=settled
+            settlements.settled(toResponse(p));
+            slot.submit(() -> {
+                paymentEvents.publish(p);
+                webhookDispatcher.enqueueDelivery(p);
+            });
+        }, slot::cancel);
+
+        var previous = p.getStatus();
+        var now = Instant.now();
+        // Só status e updatedAt; se a liquidação mudou o status desde a leitura, o estorno não se aplica
+        if (payments.updateStatus(p.getId(), previous, Payment.Status.REFUNDED, now) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment status changed, retry");
+        }
         p.setStatus(Payment.Status.REFUNDED);
-        p.setUpdatedAt(Instant.now());
-        payments.save(p);
+        p.setUpdatedAt(now);
+        // Só o que foi capturado volta do saldo do merchant
+        if (previous == Payment.Status.APPROVED) ledger.recordRefund(p);
 
-        paymentExecutor.submit(() -> webhookDispatcher.enqueueDelivery(p.getId()));
         return java.util.Map.of("id","ref_" + UUID.randomUUID(), "status","PENDING");
     }
 
-    private void processAndWebhook(String paymentId){
-        try { Thread.sleep(Math.max(0, delayMs)); } catch (InterruptedException ignored) {}
+    // Fora da tabela: ou não existe, ou já foi para o arquivo frio, que é só leitura
+    private ResponseStatusException notRefundable(long mid, String paymentId){
+        var archived = archive.find(paymentId).orElse(null);
+        if (archived == null) return new ResponseStatusException(HttpStatus.NOT_FOUND);
+        if (mid != archived.getMerchantId()) return new ResponseStatusException(HttpStatus.FORBIDDEN);
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Payment archived, refund window closed");
+    }
 
-        var p = payments.findById(paymentId).orElse(null);
-        if (p == null) return;
+    // p é a cópia criada em createPayment: nada mudou nela além de status e updatedAt, então não é relida
+    private void processAndWebhook(Payment p, boolean approved){
+        if (p.getStatus() == Payment.Status.PENDING) {
+            var to = approved ? Payment.Status.APPROVED : Payment.Status.DECLINED;
+            var at = Instant.now();
+            boolean moved = Boolean.TRUE.equals(tx.execute(status -> {
+                if (payments.updateStatus(p.getId(), Payment.Status.PENDING, to, at) == 0) return false;
+                if (approved) ledger.recordCapture(p);
+                return true;
+            }));
+            // Outro fluxo (ex.: estorno) já tirou o pagamento de PENDING, publicou o próprio evento e avisou quem espera
+            if (!moved) return;
+            p.setStatus(to);
+            p.setUpdatedAt(at);
+            settlements.settled(toResponse(p));
+        }
 
-        var approved = Math.random() > failRate;
-        p.setStatus(approved ? Payment.Status.APPROVED : Payment.Status.DECLINED);
-        p.setUpdatedAt(Instant.now());
-        payments.save(p);
+        paymentEvents.publish(p);
+        webhookDispatcher.enqueueDelivery(p);
+    }
 
-        webhookDispatcher.enqueueDelivery(p.getId());
+    private PaymentResponse toResponse(PaymentView v){
+        return new PaymentResponse(
+                v.id(), v.status().name(), v.method(),
+                Money.ofMinor(v.amountMinor(), v.currency()), v.installments(), v.monthlyInterest(),
+                Money.ofMinor(v.totalWithInterestMinor(), v.currency())
+        );
     }
 
     private PaymentResponse toResponse(Payment p){
@@ -0,0 +1,46 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Avisa quem está esperando a liquidação de um pagamento (POST /payments?wait=settled).
+// Quem espera não ocupa thread: só fica um CompletableFuture no mapa até a liquidação ou o timeout.
+// Várias requisições (a mesma Idempotency-Key repetida) dividem o future; a entrada sai quando o pagamento
+// sai de PENDING ou quando a última delas desiste.
+@Component
+public class SettlementNotifier {
+
+    private static final class Waiters {
+        final CompletableFuture<PaymentResponse> future = new CompletableFuture<>();
+        int count; // alterado só dentro de compute, sob o lock da entrada
+    }
+
+    private final Map<String, Waiters> waiters = new ConcurrentHashMap<>();
+
+    public CompletableFuture<PaymentResponse> await(String paymentId) {
+        return waiters.compute(paymentId, (k, w) -> {
+            if (w == null) w = new Waiters();
+            w.count++;
+            return w;
+        }).future;
+    }
+
+    public void settled(PaymentResponse payment) {
+        var w = waiters.remove(payment.id());
+        if (w != null) w.future.complete(payment);
+    }
+
+    // Chamado por quem deixou de esperar (timeout, erro, cliente desconectado); depois de settled() é no-op
+    public void abandon(String paymentId, CompletableFuture<PaymentResponse> f) {
+        waiters.computeIfPresent(paymentId, (k, w) -> w.future != f || --w.count > 0 ? w : null);
+    }
+
+    // Pagamentos com alguém esperando
+    public int waiting() {
+        return waiters.size();
+    }
+}
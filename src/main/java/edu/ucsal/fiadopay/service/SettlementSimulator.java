@@ -0,0 +1,60 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.config.SettlementProperties;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.PluginRegistry;
+import edu.ucsal.fiadopay.plugins.spi.SettlementModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Decide resultado e latência da liquidação simulada.
+// Cada pagamento ganha seu próprio SplittableRandom, derivado da seed e de uma chave estável do pagamento
+// (merchant + Idempotency-Key, ou o id quando não há chave). Não há estado compartilhado entre threads e,
+// com a mesma seed e as mesmas chaves, o resultado independe da ordem em que as threads processam.
+// O modelo de cada método vem de fiadopay.settlement.methods; um bean SettlementModel anotado com
+// @PaymentMethod, encontrado pelo PluginRegistry, substitui a configuração daquele método.
+@Service
+public class SettlementSimulator {
+
+    private static final Logger log = LoggerFactory.getLogger(SettlementSimulator.class);
+
+    private final long seed;
+    private final Map<String, SettlementModel> byMethod = new HashMap<>();
+    private final SettlementModel fallback;
+
+    public SettlementSimulator(SettlementProperties props,
+                               PluginRegistry plugins,
+                               @Value("${fiadopay.processing-delay-ms}") long defaultDelayMs,
+                               @Value("${fiadopay.failure-rate}") double defaultFailureRate) {
+        this.seed = props.seed() != null ? props.seed() : ThreadLocalRandom.current().nextLong();
+        this.fallback = new ConfiguredSettlementModel(defaultDelayMs, defaultFailureRate);
+        props.methods().forEach((method, cfg) -> byMethod.put(method.toUpperCase(Locale.ROOT),
+                new ConfiguredSettlementModel(cfg, defaultDelayMs, defaultFailureRate)));
+        plugins.settlementModels().forEach((method, model) -> {
+            byMethod.put(method.toUpperCase(Locale.ROOT), model);
+            log.info("Settlement model for {}: {}", method, model.getClass().getName());
+        });
+        log.info("Settlement simulator seed={} (fiadopay.settlement.seed reproduz esta execução)", seed);
+    }
+
+    public SettlementModel.Outcome decide(Payment p) {
+        return byMethod.getOrDefault(p.getMethod(), fallback).decide(p, randomFor(p));
+    }
+
+    private SplittableRandom randomFor(Payment p) {
+        String key = p.getIdempotencyKey() != null ? p.getIdempotencyKey() : p.getId();
+        long h = 0xcbf29ce484222325L ^ p.getMerchantId();
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return new SplittableRandom(seed ^ h);
+    }
+}
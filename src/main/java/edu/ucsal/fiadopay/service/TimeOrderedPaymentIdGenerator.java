@@ -0,0 +1,92 @@
+package edu.ucsal.fiadopay.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Ids no estilo Snowflake: 41 bits de milissegundos desde 2025-01-01, 10 bits de nó e 12 de sequência,
+// em base32 Crockford com largura fixa, então a ordem do texto é a ordem de criação (pay_0ab3...).
+// Sem locks: um único CAS por id. Se o relógio voltar ou a sequência estourar no mesmo milissegundo,
+// o contador avança para o próximo milissegundo lógico, mantendo os ids monotônicos.
+@Component
+public class TimeOrderedPaymentIdGenerator implements PaymentIdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeOrderedPaymentIdGenerator.class);
+
+    private static final long EPOCH_MS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQ_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQ_MASK = (1L << SEQ_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+    private static final String PREFIX = "pay_";
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLong state = new AtomicLong(); // (milissegundo lógico << SEQ_BITS) | sequência
+
+    @Autowired
+    public TimeOrderedPaymentIdGenerator(@Value("${fiadopay.ids.node-id:-1}") long nodeId,
+                                         @Value("${fiadopay.ids.require-node-id:false}") boolean requireNodeId) {
+        this(nodeId >= 0 ? nodeId : derivedNodeId(requireNodeId), System::currentTimeMillis);
+    }
+
+    public TimeOrderedPaymentIdGenerator(long nodeId) {
+        this(nodeId, false);
+    }
+
+    TimeOrderedPaymentIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE) throw new IllegalArgumentException("fiadopay.ids.node-id must be 0.." + MAX_NODE);
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        long now = clock.getAsLong() - EPOCH_MS;
+        long next;
+        for (;;) {
+            long prev = state.get();
+            next = now > (prev >>> SEQ_BITS) ? now << SEQ_BITS : prev + 1;
+            if (state.compareAndSet(prev, next)) break;
+        }
+        long id = ((next >>> SEQ_BITS) << (NODE_BITS + SEQ_BITS)) | (node << SEQ_BITS) | (next & SEQ_MASK);
+        return encode(id);
+    }
+
+    private static String encode(long id) {
+        char[] out = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), out, 0);
+        for (int i = out.length - 1; i >= PREFIX.length(); i--) {
+            out[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    // Sem node-id configurado, deriva de host + pid. São só 1024 valores: dois processos podem cair no mesmo nó
+    // e gerar ids iguais no mesmo milissegundo. Com require-node-id (em cluster), a aplicação nem sobe.
+    private static long derivedNodeId(boolean requireNodeId) {
+        if (requireNodeId) {
+            throw new IllegalStateException("fiadopay.ids.node-id is required (fiadopay.ids.require-node-id=true)");
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        long node = (host.hashCode() * 31L + ProcessHandle.current().pid()) & MAX_NODE;
+        log.warn("fiadopay.ids.node-id not set, derived {} from host {} and pid; other instances may derive the same "
+                + "node and generate duplicate payment ids. Set a distinct node-id per instance.", node, host);
+        return node;
+    }
+}
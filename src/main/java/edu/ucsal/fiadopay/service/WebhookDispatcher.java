@@ -1,146 +1,189 @@
 package edu.ucsal.fiadopay.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import edu.ucsal.fiadopay.domain.Merchant;
 import edu.ucsal.fiadopay.domain.Payment;
 import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import edu.ucsal.fiadopay.plugins.PluginRegistry;
 import edu.ucsal.fiadopay.repo.MerchantRepository;
-import edu.ucsal.fiadopay.repo.PaymentRepository;
 import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
+import edu.ucsal.fiadopay.util.FairScheduler;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.time.Instant;
 import java.util.Date;
 import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class WebhookDispatcher {
 
-    private final ThreadPoolTaskExecutor webhookExecutor;
+    private static final String EVENT_TYPE = "payment.updated";
+
+    private final FairScheduler webhookLanes;
     private final TaskScheduler taskScheduler;
     private final WebhookDeliveryRepository deliveries;
-    private final PaymentRepository payments;
     private final MerchantRepository merchants;
     private final ObjectMapper mapper;
+    private final PluginRegistry pluginRegistry;
 
-    private final HttpClient http = HttpClient.newHttpClient();
+    // Entregas com retentativa agendada; evita que o job de redelivery abra uma segunda cadeia para a mesma
+    private final Set<Long> retryChains = ConcurrentHashMap.newKeySet();
 
     @Value("${fiadopay.webhook-secret:ucsal-2025}")
     private String webhookSecret;
 
-    public WebhookDispatcher(@Qualifier("webhookExecutor") ThreadPoolTaskExecutor webhookExecutor,
+    @Value("${fiadopay.webhook-max-attempts:10}")
+    private int maxAttempts;
+
+    public WebhookDispatcher(@Qualifier("webhookFairScheduler") FairScheduler webhookLanes,
                              TaskScheduler taskScheduler,
                              WebhookDeliveryRepository deliveries,
-                             PaymentRepository payments,
                              MerchantRepository merchants,
-                             ObjectMapper mapper) {
-        this.webhookExecutor = webhookExecutor;
+                             ObjectMapper mapper,
+                             PluginRegistry pluginRegistry) {
+        this.webhookLanes = webhookLanes;
         this.taskScheduler = taskScheduler;
         this.deliveries = deliveries;
-        this.payments = payments;
         this.merchants = merchants;
         this.mapper = mapper;
+        this.pluginRegistry = pluginRegistry;
     }
 
-    public void enqueueDelivery(String paymentId) {
-        Payment p = payments.findById(paymentId).orElseThrow();
-        Merchant m = merchants.findById(p.getMerchantId()).orElseThrow();
-
-        WebhookDelivery d = WebhookDelivery.builder()
-                .eventId("evt_" + paymentId)
-                .eventType("payment.updated")
-                .paymentId(p.getId())
-                .targetUrl(m.getWebhookUrl())
-                .signature("")
-                .payload("")
-                .attempts(0)
-                .delivered(false)
-                .lastAttemptAt(null)
-                .build();
-
-        d = deliveries.save(d);
-        scheduleTryDeliver(d.getId(), 0);
+    // Monta, serializa e assina o evento uma única vez, no instante em que ele acontece
+    public void enqueueDelivery(Payment p) {
+        // Merchants sem webhookUrl acompanham pelo stream SSE
+        String targetUrl = merchants.findWebhookUrlById(p.getMerchantId()).orElse(null);
+        if (targetUrl == null || targetUrl.isBlank()) return;
+        Instant occurredAt = p.getUpdatedAt() != null ? p.getUpdatedAt() : Instant.now();
+
+        WebhookDelivery d = null;
+        // A sequência é count + 1; a unique (paymentId, sequence) resolve eventos concorrentes do mesmo pagamento
+        for (int tries = 0; d == null; tries++) {
+            long sequence = deliveries.countByPaymentId(p.getId()) + 1;
+            String eventId = "evt_" + p.getId() + "_" + sequence;
+
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("eventId", eventId);
+            payload.put("sequence", sequence);
+            payload.put("paymentId", p.getId());
+            payload.put("status", p.getStatus().name());
+            payload.put("amount", p.getAmount());
+            payload.put("merchantId", p.getMerchantId());
+            payload.put("occurredAt", occurredAt.toString());
+            byte[] body = serialize(payload);
+
+            try {
+                d = deliveries.save(WebhookDelivery.builder()
+                        .eventId(eventId)
+                        .eventType(EVENT_TYPE)
+                        .paymentId(p.getId())
+                        .merchantId(p.getMerchantId())
+                        .sequence(sequence)
+                        .occurredAt(occurredAt)
+                        .targetUrl(targetUrl)
+                        .signature(hmacSha256Hex(webhookSecret, body))
+                        .payload(body)
+                        .attempts(0)
+                        .delivered(false)
+                        .lastAttemptAt(null)
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                if (tries >= 5) throw e;
+            }
+        }
+
+        retryChains.add(d.getId());
+        scheduleTryDeliver(PreparedEvent.of(d), 0);
     }
 
-    public void scheduleTryDeliver(Long deliveryId, int attempt) {
+    public void scheduleTryDeliver(PreparedEvent event, int attempt) {
         long delaySec = Math.min(30, (long) Math.pow(2, Math.max(0, attempt)));
+        // O envio roda no webhookExecutor, na vez do merchant: um endpoint lento ou fora do ar
+        // só ocupa as threads que o teto de concorrência desse merchant permite
         taskScheduler.schedule(
                 () -> {
                     try {
-                        tryDeliver(deliveryId);
-                    } catch (Exception e) {
-                        scheduleTryDeliver(deliveryId, attempt + 1);
+                        webhookLanes.submit(event.merchantId(), () -> {
+                            try {
+                                tryDeliver(event);
+                            } catch (Exception e) {
+                                scheduleTryDeliver(event, attempt + 1);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        scheduleTryDeliver(event, attempt + 1);
                     }
                 },
                 Date.from(Instant.now().plusSeconds(delaySec))
         );
     }
 
-    public void tryDeliver(Long deliveryId) throws Exception {
-        WebhookDelivery d = deliveries.findById(deliveryId).orElseThrow();
-        if (d.isDelivered()) return;
+    // Envia os bytes já assinados; nenhuma leitura de entidade nem serialização por tentativa
+    public void tryDeliver(PreparedEvent event) throws Exception {
+        // Consulta escalar: a entrega pode ter sido concluída por outra cadeia ou antes de um reinício
+        // Morta também encerra a cadeia: a última falha registrada completou maxAttempts
+        if (!deliveries.existsByIdAndDeliveredFalseAndDeadFalse(event.deliveryId())) {
+            retryChains.remove(event.deliveryId());
+            return;
+        }
+        var transport = pluginRegistry.sink(event.target().getScheme())
+                .orElseThrow(() -> new IllegalStateException("No webhook sink for " + event.target().getScheme()));
+
+        try {
+            transport.deliver(event.target(), event.eventType(), event.signature(), event.body());
+        } catch (Exception e) {
+            deliveries.recordAttempt(event.deliveryId(), Instant.now(), false, maxAttempts);
+            throw e;
+        }
+        deliveries.recordAttempt(event.deliveryId(), Instant.now(), true, maxAttempts);
+        retryChains.remove(event.deliveryId());
+    }
 
-        Payment p = payments.findById(d.getPaymentId()).orElseThrow();
-        Merchant m = merchants.findById(p.getMerchantId()).orElseThrow();
+    public record PreparedEvent(Long deliveryId, long merchantId, URI target, String eventType, String signature, byte[] body) {
+        static PreparedEvent of(WebhookDelivery d) {
+            long merchantId = d.getMerchantId() == null ? 0L : d.getMerchantId();
+            return new PreparedEvent(d.getId(), merchantId, URI.create(d.getTargetUrl()), d.getEventType(), d.getSignature(), d.getPayload());
+        }
+    }
 
-        Map<String, Object> payload = Map.of(
-                "paymentId", p.getId(),
-                "status", p.getStatus().name(),
-                "amount", p.getAmount(),
-                "merchantId", p.getMerchantId(),
-                "occurredAt", Instant.now().toString()
-        );
-        byte[] body = mapper.writeValueAsBytes(payload);
-        String signature = hmacSha256Hex(webhookSecret, body);
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(m.getWebhookUrl()))
-                .header(HttpHeaders.CONTENT_TYPE, "application/json")
-                .header("X-Event-Type", "payment.updated")
-                .header("X-Signature", signature)
-                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
-                .build();
-
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-
-        d.setAttempts(d.getAttempts() + 1);
-        d.setLastAttemptAt(Instant.now());
-        d.setSignature(signature);
-        d.setPayload(new String(body, StandardCharsets.UTF_8));
-
-        if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-            d.setDelivered(true);
-        } else {
-            deliveries.save(d);
-            throw new IllegalStateException("Webhook failed with status " + resp.statusCode());
+    private byte[] serialize(Map<String, Object> payload) {
+        try {
+            return mapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize webhook payload", e);
         }
-        deliveries.save(d);
     }
 
-    private String hmacSha256Hex(String secret, byte[] message) throws Exception {
-        var mac = javax.crypto.Mac.getInstance("HmacSHA256");
-        var keySpec = new javax.crypto.spec.SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        mac.init(keySpec);
-        byte[] sig = mac.doFinal(message);
-        return HexFormat.of().formatHex(sig);
+    private String hmacSha256Hex(String secret, byte[] message) {
+        try {
+            var mac = javax.crypto.Mac.getInstance("HmacSHA256");
+            var keySpec = new javax.crypto.spec.SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+            mac.init(keySpec);
+            byte[] sig = mac.doFinal(message);
+            return HexFormat.of().formatHex(sig);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
     }
 
     @Scheduled(initialDelay = 10_000, fixedRate = 60_000)
     public void startRedeliveryJob() {
-        deliveries.findAll().stream()
-                .filter(d -> !d.isDelivered())
-                .forEach(d -> scheduleTryDeliver(d.getId(), Math.max(0, d.getAttempts())));
+        // Só retoma entregas sem cadeia de retentativa viva neste processo
+        deliveries.findByDeliveredFalseAndDeadFalse().stream()
+                .filter(d -> retryChains.add(d.getId()))
+                .forEach(d -> scheduleTryDeliver(PreparedEvent.of(d), Math.max(0, d.getAttempts())));
     }
 }
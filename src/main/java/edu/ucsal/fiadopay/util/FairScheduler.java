@@ -0,0 +1,222 @@
+package edu.ucsal.fiadopay.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongToIntFunction;
+
+// Escalonador justo na frente de um executor compartilhado: uma fila limitada por chave (merchant) e
+// deficit round robin entre as chaves com trabalho pendente. A cada vez, uma chave ganha quantum * peso
+// créditos e despacha uma tarefa por crédito. Uma chave que enche a própria fila só rejeita as próprias
+// tarefas, e o teto de concorrência por chave impede que ela ocupe todas as threads (bulkhead).
+// No máximo maxInFlight tarefas ficam no executor por vez, então a fila FIFO dele nunca decide a ordem.
+public final class FairScheduler {
+
+    private final String name;
+    private final Executor delegate;
+    private final int queueCapacity;
+    private final int quantum;
+    private final LongToIntFunction weightOf;
+    private final LongToIntFunction maxConcurrencyOf;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Flow> flows = new HashMap<>();
+    private final ArrayDeque<Flow> active = new ArrayDeque<>();
+    private int permits;
+
+    private static final class Flow {
+        final long key;
+        final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        int deficit;
+        int inFlight;
+        int reserved; // vagas da fila prometidas por reserve() e ainda não usadas
+        boolean active;
+        boolean credited; // já recebeu os créditos da vez atual
+
+        Flow(long key) {
+            this.key = key;
+        }
+    }
+
+    public FairScheduler(String name, Executor delegate, int maxInFlight, int queueCapacity, int quantum,
+                         LongToIntFunction weightOf, LongToIntFunction maxConcurrencyOf) {
+        if (maxInFlight < 1 || queueCapacity < 1 || quantum < 1) {
+            throw new IllegalArgumentException("maxInFlight, queueCapacity and quantum must be positive");
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.permits = maxInFlight;
+        this.queueCapacity = queueCapacity;
+        this.quantum = quantum;
+        this.weightOf = weightOf;
+        this.maxConcurrencyOf = maxConcurrencyOf;
+    }
+
+    // RejectedExecutionException quando a fila desta chave está cheia; as demais não são afetadas
+    public void submit(long key, Runnable task) {
+        List<Runnable> ready;
+        lock.lock();
+        try {
+            Flow f = flows.computeIfAbsent(key, Flow::new);
+            if (f.queue.size() + f.reserved >= queueCapacity) {
+                throw new RejectedExecutionException(name + ": queue for key " + key + " is full");
+            }
+            ready = enqueueLocked(f, task);
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+    }
+
+    // Reserva uma vaga na fila da chave para quem precisa recusar já, mas só pode enfileirar depois
+    // (ex.: depois do commit). Mesma RejectedExecutionException de submit; a vaga é usada por
+    // Reservation.submit ou devolvida por Reservation.cancel, exatamente uma vez.
+    public Reservation reserve(long key) {
+        lock.lock();
+        try {
+            Flow f = flows.computeIfAbsent(key, Flow::new);
+            if (f.queue.size() + f.reserved >= queueCapacity) {
+                throw new RejectedExecutionException(name + ": queue for key " + key + " is full");
+            }
+            f.reserved++;
+            return new Reservation(f);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final class Reservation {
+        private final Flow flow;
+        private boolean used;
+
+        private Reservation(Flow flow) {
+            this.flow = flow;
+        }
+
+        public void submit(Runnable task) {
+            List<Runnable> ready;
+            lock.lock();
+            try {
+                release();
+                ready = enqueueLocked(flow, task);
+            } finally {
+                lock.unlock();
+            }
+            start(ready);
+        }
+
+        public void cancel() {
+            lock.lock();
+            try {
+                release();
+                if (flow.reserved == 0 && !flow.active && flow.inFlight == 0) flows.remove(flow.key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release() {
+            if (used) throw new IllegalStateException(name + ": reservation already used");
+            used = true;
+            flow.reserved--;
+        }
+    }
+
+    public int queued(long key) {
+        lock.lock();
+        try {
+            Flow f = flows.get(key);
+            return f == null ? 0 : f.queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Runnable> enqueueLocked(Flow f, Runnable task) {
+        f.queue.addLast(task);
+        if (!f.active) {
+            f.active = true;
+            active.addLast(f);
+        }
+        return dispatchLocked();
+    }
+
+    private List<Runnable> dispatchLocked() {
+        List<Runnable> ready = null;
+        int idleTurns = 0;
+        while (permits > 0 && !active.isEmpty() && idleTurns < active.size()) {
+            Flow f = active.peekFirst();
+            int cap = Math.max(1, maxConcurrencyOf.applyAsInt(f.key));
+            if (!f.credited) {
+                f.deficit += quantum * Math.max(1, weightOf.applyAsInt(f.key));
+                f.credited = true;
+            }
+            boolean served = false;
+            while (permits > 0 && f.deficit > 0 && f.inFlight < cap && !f.queue.isEmpty()) {
+                Runnable task = f.queue.pollFirst();
+                f.deficit--;
+                f.inFlight++;
+                permits--;
+                served = true;
+                if (ready == null) ready = new ArrayList<>();
+                ready.add(wrap(f, task));
+            }
+            // Acabaram as threads no meio da vez: ela continua daqui quando alguma tarefa terminar
+            if (permits == 0 && f.deficit > 0 && f.inFlight < cap && !f.queue.isEmpty()) break;
+
+            active.pollFirst();
+            f.credited = false;
+            if (f.queue.isEmpty()) {
+                f.deficit = 0;
+                f.active = false;
+                if (f.inFlight == 0 && f.reserved == 0) flows.remove(f.key);
+            } else {
+                // No teto de concorrência o crédito não acumula além de uma vez
+                if (f.inFlight >= cap) f.deficit = Math.min(f.deficit, quantum * Math.max(1, weightOf.applyAsInt(f.key)));
+                active.addLast(f);
+            }
+            idleTurns = served ? 0 : idleTurns + 1;
+        }
+        return ready == null ? List.of() : ready;
+    }
+
+    private Runnable wrap(Flow f, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                done(f);
+            }
+        };
+    }
+
+    private void done(Flow f) {
+        List<Runnable> ready;
+        lock.lock();
+        try {
+            permits++;
+            f.inFlight--;
+            if (f.inFlight == 0 && !f.active && f.reserved == 0) flows.remove(f.key);
+            ready = dispatchLocked();
+        } finally {
+            lock.unlock();
+        }
+        start(ready);
+    }
+
+    private void start(List<Runnable> ready) {
+        for (int i = 0; i < ready.size(); i++) {
+            try {
+                delegate.execute(ready.get(i));
+            } catch (RejectedExecutionException e) {
+                // Executor desligando: roda na thread atual para não perder a tarefa nem a permissão
+                ready.get(i).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package edu.ucsal.fiadopay.util;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Fila circular limitada, multi-produtor/multi-consumidor e sem locks (esquema de sequências por slot).
+// offer() nunca bloqueia: com a fila cheia retorna false e quem chamou decide o que fazer.
+public final class RingBuffer<E> {
+
+    private final int mask;
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.items = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long pos = tail.get();
+        for (;;) {
+            int idx = (int) (pos & mask);
+            long dif = sequences.getAcquire(idx) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items[idx] = e;
+                    sequences.setRelease(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = head.get();
+        for (;;) {
+            int idx = (int) (pos & mask);
+            long dif = sequences.getAcquire(idx) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = (E) items[idx];
+                    items[idx] = null;
+                    sequences.setRelease(idx, pos + mask + 1);
+                    return e;
+                }
+                pos = head.get();
+            } else if (dif < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    public int drain(Consumer<? super E> consumer, int max) {
+        int n = 0;
+        E e;
+        while (n < max && (e = poll()) != null) {
+            consumer.accept(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, items.length));
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+}
@@ -0,0 +1,125 @@
+package edu.ucsal.fiadopay.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Contagem e soma por chave numa janela deslizante, sem locks.
+// Cada chave tem um anel de baldes de tempo; cada balde guarda contagem e soma em dois longs, cada um com a
+// época do balde nos 20 bits altos. Um balde de época antiga é zerado pelo próprio CAS que o reutiliza, então
+// nenhuma thread precisa limpar nada. A janela tem a resolução de um balde (window / buckets).
+// O número de chaves é limitado: passando de maxKeys, chaves sem atividade na janela são removidas primeiro e,
+// se não bastar, quaisquer outras (elas recomeçam do zero).
+public final class SlidingWindowCounter<K> {
+
+    private static final int EPOCH_BITS = 20;
+    private static final int VALUE_BITS = 64 - EPOCH_BITS;
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+
+    public record Totals(long count, long sum) {}
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    private final Map<K, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private static final class Slot {
+        final AtomicLongArray cells; // [contagem, soma] por balde
+        volatile long lastEpoch;
+
+        Slot(int buckets, long epoch) {
+            this.cells = new AtomicLongArray(buckets * 2);
+            this.lastEpoch = epoch;
+        }
+    }
+
+    public SlidingWindowCounter(Duration window, int buckets, int maxKeys) {
+        this(window, buckets, maxKeys, System::currentTimeMillis);
+    }
+
+    public SlidingWindowCounter(Duration window, int buckets, int maxKeys, LongSupplier clockMillis) {
+        if (buckets < 1 || maxKeys < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("window must be at least one millisecond per bucket");
+        }
+        this.buckets = buckets;
+        this.bucketMillis = window.toMillis() / buckets;
+        this.maxKeys = maxKeys;
+        this.clock = clockMillis;
+    }
+
+    // Registra um evento e devolve os totais da janela já incluindo ele
+    public Totals add(K key, long amount) {
+        if (amount < 0) throw new IllegalArgumentException("amount must not be negative");
+        long now = clock.getAsLong() / bucketMillis;
+        Slot s = slots.get(key);
+        if (s == null) {
+            // Nasce com a época atual: a varredura que ela mesma dispara não a toma por ociosa
+            s = slots.computeIfAbsent(key, k -> new Slot(buckets, now));
+            if (slots.size() > maxKeys) evict(now);
+        }
+        if (s.lastEpoch != now) s.lastEpoch = now;
+
+        int i = (int) Long.remainderUnsigned(now, buckets) * 2;
+        long e = now & EPOCH_MASK;
+        bump(s.cells, i, e, 1);
+        bump(s.cells, i + 1, e, amount);
+        return totals(s, now);
+    }
+
+    public Totals totals(K key) {
+        Slot s = slots.get(key);
+        return s == null ? new Totals(0, 0) : totals(s, clock.getAsLong() / bucketMillis);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    private Totals totals(Slot s, long now) {
+        long count = 0, sum = 0;
+        for (int b = 0; b < buckets; b++) {
+            long c = s.cells.get(b * 2);
+            long m = s.cells.get(b * 2 + 1);
+            if (current(c, now)) count += c & VALUE_MASK;
+            if (current(m, now)) sum += m & VALUE_MASK;
+        }
+        return new Totals(count, sum);
+    }
+
+    private boolean current(long cell, long now) {
+        long age = ((now & EPOCH_MASK) - (cell >>> VALUE_BITS)) & EPOCH_MASK;
+        return cell != 0 && age < buckets;
+    }
+
+    private static void bump(AtomicLongArray cells, int i, long epoch, long delta) {
+        for (;;) {
+            long v = cells.get(i);
+            long next = (v >>> VALUE_BITS) == epoch && v != 0
+                    ? (v & ~VALUE_MASK) | Math.min(VALUE_MASK, (v & VALUE_MASK) + delta)
+                    : (epoch << VALUE_BITS) | Math.min(VALUE_MASK, delta);
+            if (cells.compareAndSet(i, v, next)) return;
+        }
+    }
+
+    // Uma thread por vez; as demais seguem sem esperar
+    private void evict(long now) {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            slots.values().removeIf(s -> now - s.lastEpoch >= buckets);
+            int excess = slots.size() - maxKeys + maxKeys / 10;
+            for (Iterator<K> it = slots.keySet().iterator(); excess > 0 && it.hasNext(); excess--) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
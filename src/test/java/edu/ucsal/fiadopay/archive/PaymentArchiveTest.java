@@ -0,0 +1,90 @@
+package edu.ucsal.fiadopay.archive;
+
+import edu.ucsal.fiadopay.config.ArchiveProperties;
+import edu.ucsal.fiadopay.domain.Payment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static edu.ucsal.fiadopay.archive.SegmentTest.DAY;
+import static edu.ucsal.fiadopay.archive.SegmentTest.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private PaymentArchive open() throws IOException {
+        var archive = new PaymentArchive(new ArchiveProperties(true, dir, Duration.ofHours(24), 1000, 3));
+        archive.load();
+        return archive;
+    }
+
+    // Duas rodadas do arquivador, cada uma com pagamentos de dois dias (o segundo começa em pay_00100)
+    private static List<List<Payment>> rounds() {
+        var first = new ArrayList<Payment>();
+        var second = new ArrayList<Payment>();
+        for (int n = 0; n < 20; n++) (n % 2 == 0 ? first : second).add(payment(n, Payment.Status.APPROVED));
+        for (int n = 0; n < 20; n++) {
+            var p = payment(100 + n, Payment.Status.DECLINED);
+            p.setCreatedAt(DAY.plus(Duration.ofDays(1)).plusSeconds(n));
+            (n % 2 == 0 ? first : second).add(p);
+        }
+        return List.of(first, second);
+    }
+
+    private static void assertFindsAll(PaymentArchive archive, List<List<Payment>> rounds) {
+        for (var round : rounds) for (Payment p : round) assertThat(archive.find(p.getId())).contains(p);
+        assertThat(archive.find("pay_00050")).isEmpty(); // entre os dois dias
+        assertThat(archive.find("pay_00200")).isEmpty(); // depois de tudo
+        assertThat(archive.find("aaa")).isEmpty();       // antes de tudo
+    }
+
+    @Test
+    void appendFindCompactAndReloadAfterRestart() throws Exception {
+        var rounds = rounds();
+        var archive = open();
+        for (var round : rounds) archive.append(round, Map.of());
+        assertFindsAll(archive, rounds);
+        assertThat(segmentFiles()).hasSize(4);
+
+        assertThat(archive.compact(LocalDate.of(2026, 1, 11))).isEqualTo(2); // só o primeiro dia está fechado
+        assertThat(segmentFiles()).hasSize(3);
+        assertFindsAll(archive, rounds);
+
+        var restarted = open();
+        assertFindsAll(restarted, rounds);
+        assertThat(restarted.compact(LocalDate.of(2026, 1, 12))).isEqualTo(2);
+        assertThat(segmentFiles()).hasSize(2);
+        assertFindsAll(open(), rounds);
+    }
+
+    @Test
+    void rearchivedPaymentWinsOverTheOlderCopyBeforeAndAfterCompaction() throws Exception {
+        var archive = open();
+        archive.append(List.of(payment(1, Payment.Status.APPROVED), payment(2, Payment.Status.APPROVED)), Map.of());
+        Thread.sleep(2); // writtenAt em milissegundos decide qual cópia é a mais nova
+        archive.append(List.of(payment(2, Payment.Status.REFUNDED)), Map.of());
+
+        assertThat(archive.find("pay_00002")).contains(payment(2, Payment.Status.REFUNDED));
+        assertThat(open().find("pay_00002")).contains(payment(2, Payment.Status.REFUNDED));
+        archive.compact(LocalDate.of(2026, 1, 11));
+        assertThat(open().find("pay_00002")).contains(payment(2, Payment.Status.REFUNDED));
+        assertThat(open().find("pay_00001")).contains(payment(1, Payment.Status.APPROVED));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (var files = Files.walk(dir)) {
+            return files.filter(f -> f.toString().endsWith(Segment.SUFFIX)).toList();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package edu.ucsal.fiadopay.archive;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentTest {
+
+    static final Instant DAY = Instant.parse("2026-01-10T12:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    static Payment payment(int n, Payment.Status status) {
+        return Payment.builder()
+                .id(String.format("pay_%05d", n))
+                .merchantId((long) (n % 3 + 1))
+                .method(n % 2 == 0 ? "CARD" : "PIX")
+                .amountMinor(1_000 + n)
+                .currency("BRL")
+                .installments(n % 2 == 0 ? 3 : 1)
+                .monthlyInterest(n % 2 == 0 ? 1.0 : null)
+                .totalWithInterestMinor(1_030 + n)
+                .status(status)
+                .createdAt(DAY.plusSeconds(n))
+                .updatedAt(DAY.plusSeconds(n + 60))
+                .idempotencyKey(n % 4 == 0 ? "idem-" + n : null)
+                .metadataOrderId(n % 5 == 0 ? "order-" + n : null)
+                .build();
+    }
+
+    static List<Payment> payments(int from, int to, int step, Payment.Status status) {
+        var out = new ArrayList<Payment>();
+        for (int n = from; n < to; n += step) out.add(payment(n, status));
+        return out;
+    }
+
+    static WebhookDelivery delivery(Payment p, long sequence) {
+        return WebhookDelivery.builder()
+                .paymentId(p.getId())
+                .merchantId(p.getMerchantId())
+                .eventId("evt_" + p.getId() + "_" + sequence)
+                .eventType("payment.updated")
+                .sequence(sequence)
+                .occurredAt(p.getUpdatedAt())
+                .targetUrl(sequence == 1 ? "queue://m" : null)
+                .signature("sig-" + sequence)
+                .attempts((int) sequence)
+                .lastAttemptAt(sequence == 1 ? p.getUpdatedAt() : null)
+                .payload(("{\"id\":\"" + p.getId() + "\"}").getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+
+    @Test
+    void writeThenFindEveryIdAcrossBlocks() throws IOException {
+        var rows = payments(0, 40, 2, Payment.Status.APPROVED); // ids pares: os ímpares caem entre linhas
+        var seg = Segment.write(dir.resolve("a.fpa"), rows, Map.of(), 3);
+
+        for (Payment p : rows) assertThat(seg.find(p.getId())).contains(p);
+        assertThat(seg.find("pay_00001")).isEmpty();   // dentro do primeiro bloco
+        assertThat(seg.find("pay_00007")).isEmpty();   // entre blocos
+        assertThat(seg.find("pay_00039")).isEmpty();   // depois do último id
+        assertThat(seg.find("pay_")).isEmpty();        // antes do primeiro id
+        assertThat(seg.mayContain("pay_00099")).isFalse();
+    }
+
+    @Test
+    void reopenedSegmentReadsTheSameFooterAndLeavesNoTempFile() throws IOException {
+        var rows = payments(0, 25, 1, Payment.Status.DECLINED);
+        Path file = dir.resolve("b.fpa");
+        var written = Segment.write(file, rows, Map.of(), 4);
+
+        var reopened = Segment.open(file);
+        assertThat(reopened.writtenAt).isEqualTo(written.writtenAt);
+        assertThat(reopened.firstId()).isEqualTo("pay_00000");
+        assertThat(reopened.lastId()).isEqualTo("pay_00024");
+        for (Payment p : rows) assertThat(reopened.find(p.getId())).contains(p);
+        try (var files = Files.list(dir)) {
+            assertThat(files.map(f -> f.getFileName().toString())).containsExactly("b.fpa");
+        }
+    }
+
+    @Test
+    void blockRoundTripKeepsDeliveries() throws IOException {
+        var rows = payments(0, 5, 1, Payment.Status.REFUNDED);
+        Map<String, List<WebhookDelivery>> deliveries = new HashMap<>();
+        deliveries.put(rows.get(1).getId(), List.of(delivery(rows.get(1), 1), delivery(rows.get(1), 2)));
+        deliveries.put(rows.get(4).getId(), List.of(delivery(rows.get(4), 1)));
+
+        Map<String, List<WebhookDelivery>> decoded = new HashMap<>();
+        var back = SegmentBlock.decode(SegmentBlock.encode(rows, deliveries), decoded);
+
+        assertThat(back).isEqualTo(rows);
+        assertThat(decoded.keySet()).containsExactlyInAnyOrder(rows.get(1).getId(), rows.get(4).getId());
+        for (var e : deliveries.entrySet()) {
+            assertThat(decoded.get(e.getKey())).usingRecursiveFieldByFieldElementComparatorIgnoringFields("id", "delivered")
+                    .isEqualTo(e.getValue());
+        }
+    }
+
+    @Test
+    void mergeInterleavesSegmentsAndKeepsTheNewestCopy() throws IOException {
+        var older = payments(0, 30, 2, Payment.Status.APPROVED);  // pares
+        var newer = new ArrayList<Payment>(payments(1, 30, 2, Payment.Status.APPROVED)); // ímpares
+        newer.add(payment(10, Payment.Status.REFUNDED));          // pay_00010 estornado depois
+        newer.sort((a, b) -> a.getId().compareTo(b.getId()));
+        Map<String, List<WebhookDelivery>> deliveries = Map.of(
+                "pay_00010", List.of(delivery(payment(10, Payment.Status.APPROVED), 1)));
+
+        var a = Segment.write(dir.resolve("old.fpa"), older, Map.of(), 4);
+        var b = Segment.write(dir.resolve("new.fpa"), newer, deliveries, 4);
+        var merged = Segment.merge(dir.resolve("merged.fpa"), List.of(b, a), 5);
+
+        for (int n = 0; n < 30; n++) {
+            var expected = n == 10 ? payment(10, Payment.Status.REFUNDED) : payment(n, Payment.Status.APPROVED);
+            assertThat(merged.find(expected.getId())).contains(expected);
+        }
+        assertThat(merged.firstId()).isEqualTo("pay_00000");
+        assertThat(merged.lastId()).isEqualTo("pay_00029");
+        assertThat(Segment.open(dir.resolve("merged.fpa")).find("pay_00010")).contains(payment(10, Payment.Status.REFUNDED));
+    }
+}
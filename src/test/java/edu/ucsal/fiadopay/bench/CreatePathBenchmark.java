@@ -0,0 +1,120 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.domain.Money;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.impl.CardPlugin;
+import edu.ucsal.fiadopay.service.TimeOrderedPaymentIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+// Parte em memória de POST /payments com CARD parcelado: id, Money a partir do BigDecimal do JSON,
+// montagem do Payment, juros compostos e regra HighAmount. Sem HTTP e sem banco.
+// Os *BigDecimal refazem o caminho anterior aos centavos em long (valores em BigDecimal, 1.01^n com
+// setScale HALF_UP e limite comparado em double), como base de comparação.
+// Com -prof gc, gc.alloc.rate.norm dá os bytes alocados por criação.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreatePathBenchmark {
+
+    @Param({ "1", "6", "9", "12" })
+    int installments;
+
+    private final TimeOrderedPaymentIdGenerator ids = new TimeOrderedPaymentIdGenerator(1);
+    private final CardPlugin card = new CardPlugin();
+    private PaymentRequest req;
+    private Money amount;
+
+    @Setup
+    public void setup() {
+        req = new PaymentRequest("CARD", "BRL", new BigDecimal("749.90"), installments, null);
+        amount = Money.of(req.amount(), req.currency());
+    }
+
+    @Benchmark
+    public Payment createCard() {
+        var now = Instant.now();
+        var payment = Payment.builder()
+                .id(ids.nextId())
+                .merchantId(1L)
+                .method("CARD")
+                .amount(Money.of(req.amount(), req.currency()))
+                .installments(req.installments())
+                .status(Payment.Status.PENDING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        card.enrich(payment, req);
+        if (!card.approve(payment, req)) payment.setStatus(Payment.Status.DECLINED);
+        return payment;
+    }
+
+    @Benchmark
+    public Money compoundInterest() {
+        return amount.withCompoundInterest(1, installments);
+    }
+
+    @Benchmark
+    public BigDecimalPayment createCardBigDecimal() {
+        var now = Instant.now();
+        var payment = new BigDecimalPayment();
+        payment.id = ids.nextId();
+        payment.merchantId = 1L;
+        payment.method = "CARD";
+        payment.amount = req.amount();
+        payment.currency = req.currency();
+        payment.installments = req.installments();
+        payment.status = Payment.Status.PENDING;
+        payment.createdAt = now;
+        payment.updatedAt = now;
+        payment.totalWithInterest = payment.amount;
+        if (payment.installments > 1) {
+            payment.monthlyInterest = 1.0;
+            payment.totalWithInterest = compoundInterestBigDecimal(payment.amount, payment.installments);
+        }
+        if (payment.amount.doubleValue() > 1000.00) payment.status = Payment.Status.DECLINED;
+        return payment;
+    }
+
+    @Benchmark
+    public BigDecimal compoundInterestBigDecimal() {
+        return compoundInterestBigDecimal(req.amount(), installments);
+    }
+
+    private static BigDecimal compoundInterestBigDecimal(BigDecimal amount, int n) {
+        return amount.multiply(new BigDecimal("1.01").pow(n)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Os campos do Payment quando os valores eram BigDecimal
+    public static final class BigDecimalPayment {
+        String id;
+        Long merchantId;
+        String method;
+        BigDecimal amount;
+        String currency;
+        Integer installments;
+        Double monthlyInterest;
+        BigDecimal totalWithInterest;
+        Payment.Status status;
+        Instant createdAt;
+        Instant updatedAt;
+    }
+}
@@ -0,0 +1,53 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.service.TimeOrderedPaymentIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Ids por segundo do gerador ordenado no tempo (um CAS por id), com 1 e 8 threads disputando o mesmo contador,
+// contra o id anterior ("pay_" + 8 hex de um UUID aleatório, um SecureRandom por id).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private final TimeOrderedPaymentIdGenerator ids = new TimeOrderedPaymentIdGenerator(1);
+
+    @Benchmark
+    @Threads(1)
+    public String timeOrdered() {
+        return ids.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String timeOrderedContended() {
+        return ids.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String randomUuid() {
+        return "pay_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String randomUuidContended() {
+        return "pay_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
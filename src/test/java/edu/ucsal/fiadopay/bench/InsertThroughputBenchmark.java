@@ -0,0 +1,92 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.service.TimeOrderedPaymentIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Linhas inseridas por segundo numa tabela payment que já tem `preloaded` linhas, com a chave primária
+// ordenada no tempo (entra sempre na ponta direita da B-tree) ou aleatória (espalha as escritas pela árvore).
+// A chave aleatória usa o UUID inteiro: com só 8 hex, como o id antigo, a carga inicial já colidiria.
+// Mesmo banco da aplicação: H2 em memória, MODE=PostgreSQL.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InsertThroughputBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({ "timeOrdered", "random" })
+    String ids;
+
+    @Param({ "1000000" })
+    int preloaded;
+
+    private Connection conn;
+    private PreparedStatement insert;
+    private Supplier<String> nextId;
+    private long seq;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        var generator = new TimeOrderedPaymentIdGenerator(1);
+        nextId = ids.equals("random") ? () -> "pay_" + UUID.randomUUID() : generator::nextId;
+        conn = DriverManager.getConnection("jdbc:h2:mem:insert-bench-" + ids + ";MODE=PostgreSQL", "sa", "");
+        conn.setAutoCommit(false);
+        try (var st = conn.createStatement()) {
+            st.execute("create table payment (id varchar(64) primary key, merchant_id bigint not null,"
+                    + " amount numeric(19,2) not null, status varchar(20) not null, created_at timestamp not null)");
+        }
+        conn.commit();
+        insert = conn.prepareStatement(
+                "insert into payment (id, merchant_id, amount, status, created_at) values (?, ?, ?, ?, ?)");
+        for (int done = 0; done < preloaded; done += BATCH) insertBatch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertBatch() throws SQLException {
+        var now = Timestamp.from(Instant.now());
+        for (int i = 0; i < BATCH; i++) {
+            insert.setString(1, nextId.get());
+            insert.setLong(2, ++seq % 50);
+            insert.setBigDecimal(3, BigDecimal.valueOf(seq % 100_000, 2));
+            insert.setString(4, "PENDING");
+            insert.setTimestamp(5, now);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        conn.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        insert.close();
+        conn.close();
+    }
+}
@@ -0,0 +1,48 @@
+package edu.ucsal.fiadopay.bench;
+
+import edu.ucsal.fiadopay.util.SlidingWindowCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// add() por segundo, como as regras de velocidade o chamam a cada pagamento: um merchant só disputado por
+// 1 e 8 threads (todos os CAS no mesmo balde) e 8 threads espalhadas por 1000 merchants.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlidingWindowCounterBenchmark {
+
+    private final SlidingWindowCounter<Long> counter = new SlidingWindowCounter<>(Duration.ofSeconds(60), 12, 100_000);
+
+    @Benchmark
+    @Threads(1)
+    public SlidingWindowCounter.Totals oneKey() {
+        return counter.add(1L, 74_990);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SlidingWindowCounter.Totals oneKeyContended() {
+        return counter.add(1L, 74_990);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public SlidingWindowCounter.Totals manyKeys() {
+        return counter.add(ThreadLocalRandom.current().nextLong(1_000), 74_990);
+    }
+}
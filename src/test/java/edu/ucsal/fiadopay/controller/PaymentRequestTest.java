@@ -0,0 +1,40 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.domain.Money;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// O valor não é arredondado: o que passa pela validação é convertido para centavos sem perda
+class PaymentRequestTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private boolean valid(String amount) {
+        return validator.validate(new PaymentRequest("PIX", "BRL", new BigDecimal(amount), 1, null)).isEmpty();
+    }
+
+    @Test
+    void acceptsAtMostTwoDecimalPlaces() {
+        assertThat(valid("10")).isTrue();
+        assertThat(valid("10.5")).isTrue();
+        assertThat(valid("10.50")).isTrue();
+        assertThat(valid("9999999999999999.99")).isTrue();
+
+        assertThat(valid("10.500")).isFalse(); // conta as casas escritas, mesmo zeros
+        assertThat(valid("10.005")).isFalse();
+        assertThat(valid("10.999")).isFalse();
+        assertThat(valid("0.001")).isFalse();
+        assertThat(valid("10000000000000000.00")).isFalse(); // 17 dígitos inteiros não cabem em long de centavos
+    }
+
+    @Test
+    void everyAcceptedAmountConvertsExactlyToMinorUnits() {
+        assertThat(Money.toMinor(new BigDecimal("10.5"))).isEqualTo(1050);
+        assertThat(Money.toMinor(new BigDecimal("9999999999999999.99"))).isEqualTo(999_999_999_999_999_999L);
+    }
+}
@@ -0,0 +1,115 @@
+package edu.ucsal.fiadopay.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import edu.ucsal.fiadopay.service.SettlementNotifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// POST /payments?wait=settled de ponta a ponta: PIX liquida em 50 ms, CARD só em 10 min, então o CARD
+// só sai do DeferredResult por timeout ou por um estorno. Em todos os casos a espera não fica no SettlementNotifier.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "fiadopay.failure-rate=0",
+        "fiadopay.settlement.methods.PIX.latency.kind=fixed",
+        "fiadopay.settlement.methods.PIX.latency.fixed-ms=50",
+        "fiadopay.settlement.methods.CARD.latency.kind=fixed",
+        "fiadopay.settlement.methods.CARD.latency.fixed-ms=600000",
+        "spring.datasource.url=jdbc:h2:mem:settle-wait;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class SettleWaitTest {
+
+    @LocalServerPort int port;
+    @Autowired MerchantRepository merchants;
+    @Autowired PaymentRepository payments;
+    @Autowired SettlementNotifier settlements;
+    @Autowired ObjectMapper mapper;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private long merchantId;
+    private String auth;
+
+    @BeforeEach
+    void merchant() {
+        String name = "wait-" + System.nanoTime();
+        merchantId = merchants.save(Merchant.builder()
+                .name(name).clientId(name).clientSecret("s")
+                .webhookUrl("queue://wait").status(Merchant.Status.ACTIVE)
+                .build()).getId();
+        auth = "Bearer FAKE-" + merchantId;
+    }
+
+    @Test
+    void returnsTheFinalStatusWhenSettlementArrivesInTime() throws Exception {
+        var body = createAndWait("PIX", "5s").get(10, TimeUnit.SECONDS);
+        assertThat(body.get("status").asText()).isEqualTo("APPROVED");
+        awaitTrue(() -> settlements.waiting() == 0);
+    }
+
+    @Test
+    void timeoutAnswersPendingAndReleasesTheWaiter() throws Exception {
+        var body = createAndWait("CARD", "300ms").get(10, TimeUnit.SECONDS);
+        assertThat(body.get("status").asText()).isEqualTo("PENDING");
+        awaitTrue(() -> settlements.waiting() == 0);
+    }
+
+    @Test
+    void refundThatBeatsSettlementCompletesTheWait() throws Exception {
+        var waiting = createAndWait("CARD", "20s");
+        awaitTrue(() -> settlements.waiting() == 1);
+        String id = payments.findAll().stream()
+                .filter(p -> p.getMerchantId() == merchantId).map(Payment::getId).findFirst().orElseThrow();
+
+        var refund = http.send(post("/fiadopay/gateway/refunds", "{\"paymentId\":\"" + id + "\"}"),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(refund.statusCode()).isEqualTo(200);
+        assertThat(waiting.get(5, TimeUnit.SECONDS).get("status").asText()).isEqualTo("REFUNDED");
+        assertThat(settlements.waiting()).isZero();
+    }
+
+    private CompletableFuture<JsonNode> createAndWait(String method, String timeout) {
+        var req = post("/fiadopay/gateway/payments?wait=settled&timeout=" + timeout,
+                "{\"method\":\"" + method + "\",\"currency\":\"BRL\",\"amount\":10.00,\"installments\":1}");
+        return http.sendAsync(req, HttpResponse.BodyHandlers.ofString()).thenApply(r -> {
+            assertThat(r.statusCode()).isEqualTo(201);
+            try {
+                return mapper.readTree(r.body());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", auth)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) throw new AssertionError("condição não ficou verdadeira");
+            Thread.sleep(10);
+        }
+    }
+}
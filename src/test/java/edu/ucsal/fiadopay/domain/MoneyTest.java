@@ -0,0 +1,58 @@
+package edu.ucsal.fiadopay.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    // Referência em BigDecimal: valor * (1 + taxa/100)^meses, HALF_UP para centavos
+    private static BigDecimal expected(long minor, int percent, int months) {
+        var factor = BigDecimal.valueOf(100 + percent).pow(months);
+        var den = BigDecimal.valueOf(100).pow(months);
+        return BigDecimal.valueOf(minor).multiply(factor).divide(den, 0, RoundingMode.HALF_UP);
+    }
+
+    @Test
+    void compoundInterestMatchesBigDecimalUpToTwelveMonths() {
+        var rnd = new SplittableRandom(29);
+        long[] edges = { 0, 1, 49, 50, 99, 100, 999_99, 1_000_000_000_00L, 999_999_999_999_999_99L };
+        for (int months = 0; months <= 12; months++) {
+            for (int percent : new int[] { 0, 1, 2, 7, 50, 100 }) {
+                for (long minor : edges) {
+                    check(minor, percent, months);
+                    check(-minor, percent, months);
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    long minor = rnd.nextLong(-1_000_000_000_000_000_000L, 1_000_000_000_000_000_000L);
+                    check(minor, percent, months);
+                    check(minor % 1_000_000_00L, percent, months);
+                }
+            }
+        }
+    }
+
+    @Test
+    void compoundInterestThrowsOnlyWhenTheResultDoesNotFitInLong() {
+        var big = Money.ofMinor(Long.MAX_VALUE / 2, "BRL");
+        assertThatThrownBy(() -> big.withCompoundInterest(100, 12)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> big.withCompoundInterest(1, 13)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void check(long minor, int percent, int months) {
+        var want = expected(minor, percent, months);
+        var money = Money.ofMinor(minor, "BRL");
+        if (want.toBigInteger().bitLength() > 63) {
+            assertThatThrownBy(() -> money.withCompoundInterest(percent, months)).isInstanceOf(ArithmeticException.class);
+            return;
+        }
+        assertThat(money.withCompoundInterest(percent, months).minor())
+                .as("%d a %d%% por %d meses", minor, percent, months)
+                .isEqualTo(want.longValueExact());
+    }
+}
@@ -0,0 +1,57 @@
+package edu.ucsal.fiadopay.plugins;
+
+import edu.ucsal.fiadopay.plugins.impl.CardPlugin;
+import edu.ucsal.fiadopay.plugins.impl.FileWebhookSink;
+import edu.ucsal.fiadopay.plugins.impl.HttpWebhookSink;
+import edu.ucsal.fiadopay.plugins.impl.PixPlugin;
+import edu.ucsal.fiadopay.plugins.impl.QueueWebhookSink;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sem META-INF/spring.components no classpath de teste, o registro cai na busca por anotação nos beans
+class PluginRegistryTest {
+
+    private final HttpWebhookSink http = new HttpWebhookSink();
+    private final FileWebhookSink file = new FileWebhookSink(Path.of("target/test-sinks"), 1024, 4096);
+    private final QueueWebhookSink queue = new QueueWebhookSink(16, 4);
+    private final CardPlugin card = new CardPlugin();
+    private final PluginRegistry registry;
+
+    PluginRegistryTest() {
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("http", http);
+        beans.addBean("file", file);
+        beans.addBean("queue", queue);
+        beans.addBean("card", card);
+        beans.addBean("pix", new PixPlugin());
+        registry = new PluginRegistry(beans);
+    }
+
+    @Test
+    void selectsTheSinkByUriScheme() {
+        assertThat(registry.sink("http")).containsSame(http);
+        assertThat(registry.sink("https")).containsSame(http);
+        assertThat(registry.sink("file")).containsSame(file);
+        assertThat(registry.sink("queue")).containsSame(queue);
+        assertThat(registry.sink("HTTPS")).containsSame(http);
+    }
+
+    @Test
+    void unknownOrMissingSchemeHasNoSink() {
+        assertThat(registry.sink("ftp")).isEmpty();
+        assertThat(registry.sink("")).isEmpty();
+        assertThat(registry.sink(null)).isEmpty();
+    }
+
+    @Test
+    void registersPaymentMethodsAndAntiFraudRules() {
+        assertThat(registry.supportedMethods()).containsExactlyInAnyOrder("CARD", "PIX");
+        assertThat(registry.plugin("CARD")).containsSame(card);
+        assertThat(registry.plugin("BOLETO")).isEmpty();
+        assertThat(registry.rules()).containsExactly(card);
+    }
+}
@@ -0,0 +1,92 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileWebhookSinkTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] body(int n) {
+        return ("{\"n\":" + n + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<String> lines(String file) throws IOException {
+        return Files.readAllLines(dir.resolve(file));
+    }
+
+    @Test
+    void buffersUntilFlushAndWritesOneEnvelopePerLine() throws Exception {
+        var sink = new FileWebhookSink(dir, 1 << 20, 1 << 20);
+        var target = URI.create("file:///out/events.ndjson");
+        sink.deliver(target, "payment.updated", "sig1", body(1));
+        sink.deliver(target, "payment.updated", "sig2", body(2));
+        assertThat(dir.resolve("out/events.ndjson")).doesNotExist();
+
+        sink.flushAll();
+        assertThat(lines("out/events.ndjson")).containsExactly(
+                "{\"eventType\":\"payment.updated\",\"signature\":\"sig1\",\"payload\":{\"n\":1}}",
+                "{\"eventType\":\"payment.updated\",\"signature\":\"sig2\",\"payload\":{\"n\":2}}");
+    }
+
+    @Test
+    void flushesOnItsOwnWhenTheBatchIsFull() throws Exception {
+        var sink = new FileWebhookSink(dir, 100, 1 << 20);
+        var target = URI.create("file:///events.ndjson");
+        for (int i = 0; i < 5; i++) sink.deliver(target, "payment.updated", "s", body(i));
+        assertThat(lines("events.ndjson")).hasSizeGreaterThanOrEqualTo(1);
+        sink.close();
+        assertThat(lines("events.ndjson")).hasSize(5);
+    }
+
+    @Test
+    void failedWriteKeepsTheBatchWithoutFailingTheDeliveryOrDuplicatingLines() throws Exception {
+        var sink = new FileWebhookSink(dir, 10, 1 << 20); // cada linha já enche o lote
+        Files.writeString(dir.resolve("blocked"), "arquivo no lugar do diretório");
+        var target = URI.create("file:///blocked/events.ndjson");
+
+        // A escrita falha dentro de deliver, mas o evento já está no lote: nada de exceção nem de retentativa
+        sink.deliver(target, "payment.updated", "s", body(1));
+        sink.deliver(target, "payment.updated", "s", body(2));
+        sink.flushAll();
+
+        Files.delete(dir.resolve("blocked"));
+        sink.flushAll();
+        assertThat(lines("blocked/events.ndjson")).extracting(l -> l.substring(l.indexOf("\"n\"")))
+                .containsExactly("\"n\":1}}", "\"n\":2}}");
+    }
+
+    @Test
+    void refusesNewEventsOnceTheBufferCapIsReached() throws Exception {
+        int line = "{\"eventType\":\"payment.updated\",\"signature\":\"s\",\"payload\":{\"n\":0}}\n".length();
+        var sink = new FileWebhookSink(dir, 3 * line + 1, 3 * line + 1); // o teto nunca fica abaixo do lote
+        var target = URI.create("file:///events.ndjson");
+        for (int i = 0; i < 3; i++) sink.deliver(target, "payment.updated", "s", body(i));
+        assertThatThrownBy(() -> sink.deliver(target, "payment.updated", "s", body(3))).isInstanceOf(IOException.class);
+
+        sink.flushAll();
+        sink.deliver(target, "payment.updated", "s", body(3)); // o flush liberou espaço
+        sink.flushAll();
+        assertThat(lines("events.ndjson")).hasSize(4);
+    }
+
+    @Test
+    void rejectsTargetsOutsideTheSinkDirectory() {
+        var sink = new FileWebhookSink(dir, 100, 1000);
+        assertThatThrownBy(() -> sink.validate(URI.create("file:///../escape.ndjson"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sink.validate(URI.create("file://host/events.ndjson"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sink.validate(URI.create("file:///"))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(sink.resolve(URI.create("file:///a/../b.ndjson"))).isEqualTo(dir.toAbsolutePath().normalize().resolve("b.ndjson"));
+    }
+}
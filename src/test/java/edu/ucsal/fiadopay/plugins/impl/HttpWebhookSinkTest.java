@@ -0,0 +1,73 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpWebhookSinkTest {
+
+    private final HttpWebhookSink sink = new HttpWebhookSink();
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+    private final AtomicInteger status = new AtomicInteger(204);
+    private HttpServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", exchange -> {
+            received.put("method", exchange.getRequestMethod());
+            received.put("type", exchange.getRequestHeaders().getFirst("X-Event-Type"));
+            received.put("signature", exchange.getRequestHeaders().getFirst("X-Signature"));
+            received.put("contentType", exchange.getRequestHeaders().getFirst("Content-Type"));
+            received.put("body", new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    private URI hook() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+    }
+
+    @Test
+    void postsTheSignedBodyAsIs() throws Exception {
+        sink.deliver(hook(), "payment.updated", "abc123", "{\"n\":1}".getBytes(StandardCharsets.UTF_8));
+        assertThat(received).containsEntry("method", "POST")
+                .containsEntry("type", "payment.updated")
+                .containsEntry("signature", "abc123")
+                .containsEntry("contentType", "application/json")
+                .containsEntry("body", "{\"n\":1}");
+    }
+
+    @Test
+    void nonSuccessStatusFailsTheDelivery() {
+        status.set(503);
+        assertThatThrownBy(() -> sink.deliver(hook(), "payment.updated", "s", new byte[0]))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("503");
+    }
+
+    @Test
+    void unreachableEndpointFailsTheDelivery() {
+        var closed = URI.create("http://127.0.0.1:1/hook");
+        assertThatThrownBy(() -> sink.deliver(closed, "payment.updated", "s", new byte[0])).isInstanceOf(IOException.class);
+    }
+}
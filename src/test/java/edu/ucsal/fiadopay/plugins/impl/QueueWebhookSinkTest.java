@@ -0,0 +1,58 @@
+package edu.ucsal.fiadopay.plugins.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueueWebhookSinkTest {
+
+    private final QueueWebhookSink sink = new QueueWebhookSink(4, 2);
+
+    private static byte[] body(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void deliversInOrderToTheNamedQueueWithoutCopyingTheBody() {
+        byte[] first = body("{\"n\":1}");
+        sink.deliver(URI.create("queue://orders"), "payment.updated", "sig1", first);
+        sink.deliver(URI.create("queue://orders"), "payment.updated", "sig2", body("{\"n\":2}"));
+        sink.deliver(URI.create("queue:other"), "payment.updated", "sig3", body("{}"));
+
+        assertThat(sink.size("orders")).isEqualTo(2);
+        var e = sink.poll("orders");
+        assertThat(e.signature()).isEqualTo("sig1");
+        assertThat(e.body()).isSameAs(first);
+        List<String> drained = new ArrayList<>();
+        assertThat(sink.drain("orders", ev -> drained.add(ev.signature()), 10)).isEqualTo(1);
+        assertThat(drained).containsExactly("sig2");
+        assertThat(sink.poll("other").signature()).isEqualTo("sig3");
+        assertThat(sink.poll("missing")).isNull();
+    }
+
+    @Test
+    void fullQueueFailsTheDeliverySoTheDispatcherRetries() {
+        var target = URI.create("queue://small");
+        for (int i = 0; i < 4; i++) sink.deliver(target, "payment.updated", "s" + i, body("{}"));
+        assertThatThrownBy(() -> sink.deliver(target, "payment.updated", "s4", body("{}")))
+                .isInstanceOf(IllegalStateException.class);
+        sink.poll("small");
+        sink.deliver(target, "payment.updated", "s4", body("{}"));
+        assertThat(sink.size("small")).isEqualTo(4);
+    }
+
+    @Test
+    void limitsTheNumberOfQueues() {
+        sink.deliver(URI.create("queue://a"), "payment.updated", "s", body("{}"));
+        sink.deliver(URI.create("queue://b"), "payment.updated", "s", body("{}"));
+        assertThatThrownBy(() -> sink.deliver(URI.create("queue://c"), "payment.updated", "s", body("{}")))
+                .isInstanceOf(IllegalStateException.class);
+        sink.deliver(URI.create("queue://a"), "payment.updated", "s", body("{}")); // as existentes seguem
+    }
+}
@@ -0,0 +1,156 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.domain.LedgerEntry;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.domain.MerchantBalance;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.repo.LedgerEntryRepository;
+import edu.ucsal.fiadopay.repo.MerchantBalanceRepository;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Liquidações e estornos concorrentes nos mesmos merchants, com parte dos estornos disputando a liquidação
+// e a compactação rodando no meio. No fim, o saldo em memória (LongAdder), a soma dos LedgerEntry,
+// o MerchantBalance compactado e os pagamentos APPROVED têm que bater exatamente.
+@SpringBootTest(properties = {
+        "fiadopay.processing-delay-ms=2",
+        "fiadopay.failure-rate=0.2",
+        "fiadopay.settlement.seed=42",
+        "fiadopay.ledger.compaction-interval-ms=3600000",
+        "fiadopay.archive.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:ledger-stress;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class LedgerConsistencyStressTest {
+
+    private static final int MERCHANTS = 4;
+    private static final int PAYMENTS_PER_MERCHANT = 300;
+    private static final String CURRENCY = "BRL";
+
+    @Autowired PaymentService paymentService;
+    @Autowired LedgerService ledger;
+    @Autowired MerchantRepository merchants;
+    @Autowired PaymentRepository payments;
+    @Autowired LedgerEntryRepository entries;
+    @Autowired MerchantBalanceRepository balances;
+
+    @Test
+    void balancesAgreeAfterConcurrentSettlementsRefundsAndCompaction() throws Exception {
+        var merchantIds = new ArrayList<Long>();
+        for (int m = 0; m < MERCHANTS; m++) {
+            merchantIds.add(merchants.save(Merchant.builder()
+                    .name("stress-" + m).clientId("stress-" + m).clientSecret("s")
+                    .webhookUrl("queue://stress-" + m).status(Merchant.Status.ACTIVE)
+                    .build()).getId());
+        }
+
+        var stop = new AtomicBoolean();
+        var compactor = Executors.newSingleThreadExecutor();
+        var compacting = compactor.submit(() -> {
+            while (!stop.get()) {
+                ledger.compact();
+                Thread.sleep(5);
+            }
+            return null;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        List<Future<?>> work = new ArrayList<>();
+        for (long mid : merchantIds) {
+            String auth = "Bearer FAKE-" + mid;
+            for (int i = 0; i < PAYMENTS_PER_MERCHANT; i++) {
+                int n = i;
+                work.add(clients.submit(() -> {
+                    var rnd = ThreadLocalRandom.current();
+                    var amount = BigDecimal.valueOf(rnd.nextLong(1, 100_000), 2);
+                    var created = paymentService.createPayment(auth, null,
+                            new PaymentRequest("PIX", CURRENCY, amount, 1, null));
+                    switch (n % 3) {
+                        case 0 -> refund(auth, created.id());          // disputa com a liquidação
+                        case 1 -> {
+                            Thread.sleep(rnd.nextInt(1, 20));
+                            refund(auth, created.id());                 // em geral depois dela
+                        }
+                        default -> { }
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (var f : work) f.get(60, TimeUnit.SECONDS);
+        clients.shutdown();
+
+        awaitNoPending();
+        stop.set(true);
+        compacting.get(10, TimeUnit.SECONDS);
+        compactor.shutdown();
+        ledger.compact();
+        ledger.compact();
+
+        Map<Long, Long> approved = new HashMap<>();
+        for (Payment p : payments.findAll()) {
+            if (p.getStatus() == Payment.Status.APPROVED) approved.merge(p.getMerchantId(), p.getAmountMinor(), Long::sum);
+        }
+        var all = entries.findAll();
+        // Sem capturas estornadas o teste não exercitaria o caminho de débito
+        assertThat(all).extracting(LedgerEntry::getType).contains(LedgerEntry.Type.CAPTURE, LedgerEntry.Type.REFUND);
+        Map<Long, Long> entrySums = new HashMap<>();
+        for (LedgerEntry e : all) {
+            assertThat(e.isCompacted()).as("lançamento %d compactado", e.getId()).isTrue();
+            entrySums.merge(e.getMerchantId(), e.merchantDelta(), Long::sum);
+        }
+
+        for (long mid : merchantIds) {
+            long live = ledger.balances(mid).get(CURRENCY).minor();
+            long compacted = balances.findByMerchantIdAndCurrency(mid, CURRENCY)
+                    .map(MerchantBalance::getBalanceMinor).orElse(0L);
+            assertThat(live).as("LongAdder x lançamentos, merchant %d", mid).isEqualTo(entrySums.getOrDefault(mid, 0L));
+            assertThat(compacted).as("MerchantBalance x lançamentos, merchant %d", mid).isEqualTo(live);
+            assertThat(live).as("saldo x pagamentos APPROVED, merchant %d", mid).isEqualTo(approved.getOrDefault(mid, 0L));
+        }
+    }
+
+    // 409 = a liquidação mudou o status entre a leitura e o update; o cliente tenta de novo
+    private void refund(String auth, String paymentId) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            try {
+                paymentService.refund(auth, paymentId);
+                return;
+            } catch (ResponseStatusException e) {
+                if (e.getStatusCode() != HttpStatus.CONFLICT && e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) throw e;
+                Thread.sleep(1);
+            }
+        }
+        throw new AssertionError("estorno de " + paymentId + " não passou");
+    }
+
+    private void awaitNoPending() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (payments.findAll().stream().anyMatch(p -> p.getStatus() == Payment.Status.PENDING)) {
+            if (System.nanoTime() > deadline) throw new AssertionError("liquidações não terminaram");
+            Thread.sleep(50);
+        }
+        // o LongAdder anda no afterCommit, logo depois do status ficar visível
+        Thread.sleep(200);
+    }
+}
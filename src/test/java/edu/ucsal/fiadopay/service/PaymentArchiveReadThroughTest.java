@@ -0,0 +1,104 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Pagamento liquidado, com webhook entregue, sai da tabela para o arquivo e continua legível por getPayment;
+// o estorno dele passa a ser recusado com 409. Uma entrega que esgotou as tentativas (dead) não segura o pagamento.
+@SpringBootTest(properties = {
+        "fiadopay.processing-delay-ms=1",
+        "fiadopay.failure-rate=0",
+        "fiadopay.webhook-max-attempts=1",
+        "fiadopay.archive.enabled=true",
+        "fiadopay.archive.max-age=0s",
+        "fiadopay.archive.interval-ms=3600000",
+        "fiadopay.archive.block-rows=2",
+        "fiadopay.archive.dir=target/test-archive/${random.uuid}",
+        "spring.datasource.url=jdbc:h2:mem:archive-read-through;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class PaymentArchiveReadThroughTest {
+
+    @Autowired PaymentService paymentService;
+    @Autowired PaymentArchiver archiver;
+    @Autowired MerchantRepository merchants;
+    @Autowired PaymentRepository payments;
+    @Autowired WebhookDeliveryRepository deliveries;
+
+    @Test
+    void archivedPaymentsAreStillReadable() throws Exception {
+        long mid = merchant("archive");
+        long other = merchant("archive-other");
+        long unreachable = merchants.save(Merchant.builder()
+                .name("unreachable").clientId("unreachable").clientSecret("s")
+                .webhookUrl("http://127.0.0.1:1/hook").status(Merchant.Status.ACTIVE)
+                .build()).getId();
+        String auth = "Bearer FAKE-" + mid;
+        var created = List.of(
+                paymentService.createPayment(auth, null, new PaymentRequest("PIX", "BRL", new BigDecimal("10.00"), 1, null)),
+                paymentService.createPayment(auth, null, new PaymentRequest("CARD", "BRL", new BigDecimal("25.50"), 3, null)),
+                paymentService.createPayment(auth, null, new PaymentRequest("PIX", "BRL", new BigDecimal("7.25"), 1, null)),
+                paymentService.createPayment("Bearer FAKE-" + unreachable, null,
+                        new PaymentRequest("PIX", "BRL", new BigDecimal("3.00"), 1, null)));
+        awaitSettledAndDelivered(created.size());
+        assertThat(deliveries.findAll()).filteredOn(d -> d.isDead()).singleElement()
+                .satisfies(d -> assertThat(d.getMerchantId()).isEqualTo(unreachable));
+        var hot = created.stream().map(c -> paymentService.getPayment(c.id())).toList();
+
+        archiver.archiveOld();
+
+        assertThat(payments.count()).isZero();
+        assertThat(deliveries.count()).isZero();
+        for (var before : hot) {
+            assertThat(paymentService.getPayment(before.id())).isEqualTo(before);
+        }
+
+        // Arquivado não volta para a tabela: o estorno é recusado com motivo, não com 404
+        String id = created.get(0).id();
+        assertThatThrownBy(() -> paymentService.refund(auth, id))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(e.getReason()).isEqualTo("Payment archived, refund window closed");
+                });
+        assertThatThrownBy(() -> paymentService.refund("Bearer FAKE-" + other, id))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+        assertThatThrownBy(() -> paymentService.refund(auth, "pay_missing"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    private long merchant(String name) {
+        return merchants.save(Merchant.builder()
+                .name(name).clientId(name).clientSecret("s")
+                .webhookUrl("queue://" + name).status(Merchant.Status.ACTIVE)
+                .build()).getId();
+    }
+
+    private void awaitSettledAndDelivered(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        // a entrega nasce depois do commit da liquidação: espera uma por pagamento, entregue ou morta
+        while (payments.findAll().stream().anyMatch(p -> p.getStatus() == Payment.Status.PENDING)
+                || deliveries.count() < count
+                || deliveries.findAll().stream().anyMatch(d -> !d.isDelivered() && !d.isDead())) {
+            if (System.nanoTime() > deadline) throw new AssertionError("liquidações/entregas não terminaram");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A liquidação segura a vaga da fila do merchant desde a criação: com a fila cheia, a criação responde 429
+// sem gravar nada, e os outros merchants seguem criando
+@SpringBootTest(properties = {
+        "fiadopay.processing-delay-ms=600000",
+        "fiadopay.fairness.queue-capacity=2",
+        "spring.datasource.url=jdbc:h2:mem:payment-backpressure;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class PaymentBackpressureTest {
+
+    @Autowired PaymentService paymentService;
+    @Autowired MerchantRepository merchants;
+    @Autowired PaymentRepository payments;
+
+    @Test
+    void fullMerchantQueueRejectsCreationWith429() {
+        String flooded = auth("flooded");
+        String other = auth("other");
+        var req = new PaymentRequest("PIX", "BRL", new BigDecimal("10.00"), 1, null);
+
+        paymentService.createPayment(flooded, null, req);
+        paymentService.createPayment(flooded, null, req);
+        assertThatThrownBy(() -> paymentService.createPayment(flooded, null, req))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        // O estorno disputa a mesma fila
+        String pending = payments.findAll().get(0).getId();
+        assertThatThrownBy(() -> paymentService.refund(flooded, pending))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+
+        paymentService.createPayment(other, null, req);
+        assertThat(payments.count()).isEqualTo(3);
+    }
+
+    private String auth(String name) {
+        return "Bearer FAKE-" + merchants.save(Merchant.builder()
+                .name(name).clientId(name).clientSecret("s")
+                .webhookUrl("queue://" + name).status(Merchant.Status.ACTIVE)
+                .build()).getId();
+    }
+}
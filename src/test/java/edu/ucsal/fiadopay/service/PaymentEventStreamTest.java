@@ -0,0 +1,195 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// O envio SSE roda num executor de teste que só guarda as tarefas: o teste decide quando a conexão "drena",
+// então dá para enfileirar mais do que queue-size antes do envio e ver o resync no lugar do atraso.
+@SpringBootTest(properties = {
+        "fiadopay.events.replay-size=3",
+        "fiadopay.events.queue-size=4",
+        "fiadopay.events.heartbeat-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:payment-event-stream;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class PaymentEventStreamTest {
+
+    private static final Pattern EVENT = Pattern.compile("id:(\\d+)\\nevent:(\\S+)\\ndata:(.*)\\n");
+
+    @Autowired MockMvc mvc;
+    @Autowired PaymentEventStream events;
+    @Autowired MerchantRepository merchants;
+    @MockitoBean(name = "sseExecutor") TaskExecutor sseExecutor;
+
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private long merchantId;
+    private int published;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(inv -> pending.add(inv.getArgument(0))).when(sseExecutor).execute(any());
+        String name = "sse-" + System.nanoTime();
+        merchantId = merchants.save(Merchant.builder()
+                .name(name).clientId(name).clientSecret("s")
+                .webhookUrl("queue://sse").status(Merchant.Status.ACTIVE)
+                .build()).getId();
+    }
+
+    @Test
+    void replaysWhatCameAfterLastEventId() throws Exception {
+        var live = subscribe(null);
+        publish(3);
+        drain();
+        assertThat(events(live)).containsExactly("1 payment.updated", "2 payment.updated", "3 payment.updated");
+
+        var resumed = subscribe("1");
+        var upToDate = subscribe("3");
+        drain();
+        assertThat(events(resumed)).containsExactly("2 payment.updated", "3 payment.updated");
+        assertThat(events(upToDate)).isEmpty();
+    }
+
+    @Test
+    void lastEventIdOutsideTheReplayWindowGetsResyncThenTheWindow() throws Exception {
+        subscribe(null);
+        publish(6); // replay-size=3: sobram 4..6
+
+        var late = subscribe("0");
+        drain();
+        assertThat(events(late)).containsExactly("3 resync", "4 payment.updated", "5 payment.updated", "6 payment.updated");
+    }
+
+    @Test
+    void malformedLastEventIdGetsResyncAtTheCurrentEventInsteadOfAFullReplay() throws Exception {
+        subscribe(null);
+        publish(3);
+
+        var bad = subscribe("not-a-number");
+        var negative = subscribe("-5");
+        drain();
+        assertThat(events(bad)).containsExactly("3 resync");
+        assertThat(events(negative)).containsExactly("3 resync");
+
+        publish(1);
+        drain();
+        assertThat(events(bad)).containsExactly("3 resync", "4 payment.updated");
+    }
+
+    @Test
+    void slowSubscriberLosesTheBacklogAndGetsResync() throws Exception {
+        var slow = subscribe(null);
+        drain();
+        publish(6); // queue-size=4: o quinto evento descarta os quatro anteriores
+
+        drain();
+        assertThat(events(slow)).containsExactly("4 resync", "5 payment.updated", "6 payment.updated");
+        assertThat(slow.getResponse().getContentAsString()).contains("data:{\"lastEventId\":4}");
+    }
+
+    @Test
+    void heartbeatOnlyGoesToIdleConnections() throws Exception {
+        var idle = subscribe(null);
+        drain();
+        events.heartbeat();
+        drain();
+        assertThat(idle.getResponse().getContentAsString()).isEqualTo(":keep-alive\n\n");
+
+        var busy = subscribe(null);
+        publish(1);
+        events.heartbeat(); // já há um evento na fila: ele mesmo mantém a conexão viva
+        drain();
+        assertThat(busy.getResponse().getContentAsString()).doesNotContain("keep-alive");
+    }
+
+    @Test
+    void channelIsDroppedAfterItsLastSubscriberLeaves() throws Exception {
+        var sub = subscribe(null);
+        publish(2);
+        drain();
+        int before = events.channelCount();
+
+        sub.getRequest().getAsyncContext().complete();
+        events.heartbeat();
+        assertThat(events.channelCount()).isEqualTo(before); // um heartbeat vazio ainda guarda o replay
+        assertThat(events(subscribeAndDrain("1"))).containsExactly("2 payment.updated");
+
+        events.heartbeat();
+        events.heartbeat();
+        assertThat(events.channelCount()).isEqualTo(before); // o assinante acima ainda está conectado
+    }
+
+    @Test
+    void reconnectAfterTheChannelWasDroppedGetsResync() throws Exception {
+        var sub = subscribe(null);
+        publish(2);
+        drain();
+        int before = events.channelCount();
+
+        sub.getRequest().getAsyncContext().complete();
+        events.heartbeat();
+        events.heartbeat();
+        assertThat(events.channelCount()).isEqualTo(before - 1);
+
+        // Canal novo, sem o evento 2: o cliente é avisado em vez de esperar um replay que não vem
+        assertThat(events(subscribeAndDrain("2"))).containsExactly("0 resync");
+        assertThat(events.channelCount()).isEqualTo(before);
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var req = get("/fiadopay/gateway/events").header("Authorization", "Bearer FAKE-" + merchantId);
+        if (lastEventId != null) req.header("Last-Event-ID", lastEventId);
+        return mvc.perform(req).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private MvcResult subscribeAndDrain(String lastEventId) throws Exception {
+        var result = subscribe(lastEventId);
+        drain();
+        return result;
+    }
+
+    private void publish(int n) {
+        for (int i = 0; i < n; i++) {
+            published++;
+            events.publish(Payment.builder()
+                    .id("pay_" + published).merchantId(merchantId)
+                    .amountMinor(1000).status(Payment.Status.APPROVED)
+                    .updatedAt(Instant.now())
+                    .build());
+        }
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = pending.poll()) != null) task.run();
+    }
+
+    // "id evento" de cada evento recebido, na ordem
+    private static List<String> events(MvcResult result) throws Exception {
+        return EVENT.matcher(result.getResponse().getContentAsString()).results()
+                .map(m -> m.group(1) + " " + m.group(2))
+                .toList();
+    }
+}
@@ -0,0 +1,55 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SettlementNotifierTest {
+
+    private final SettlementNotifier notifier = new SettlementNotifier();
+
+    private static PaymentResponse settled(String id) {
+        return new PaymentResponse(id, "APPROVED", "PIX", null, 1, null, null);
+    }
+
+    @Test
+    void entryStaysWhileAnyWaiterIsLeftAndGoesWithTheLast() {
+        var first = notifier.await("pay_1");
+        var second = notifier.await("pay_1");
+        var third = notifier.await("pay_1");
+        assertThat(second).isSameAs(first).isSameAs(third);
+
+        notifier.abandon("pay_1", first);
+        notifier.abandon("pay_1", second);
+        assertThat(notifier.waiting()).isEqualTo(1);
+        notifier.settled(settled("pay_1"));
+        assertThat(third).isCompletedWithValue(settled("pay_1"));
+        assertThat(notifier.waiting()).isZero();
+    }
+
+    @Test
+    void allWaitersAbandoningRemovesTheEntry() {
+        var a = notifier.await("pay_2");
+        var b = notifier.await("pay_2");
+        notifier.abandon("pay_2", a);
+        notifier.abandon("pay_2", b);
+        assertThat(notifier.waiting()).isZero();
+
+        // Uma liquidação atrasada não completa um future que ninguém mais espera
+        notifier.settled(settled("pay_2"));
+        assertThat(a).isNotDone();
+    }
+
+    @Test
+    void abandonAfterSettlementDoesNotTouchANewerWait() {
+        var old = notifier.await("pay_3");
+        notifier.settled(settled("pay_3"));
+        var newer = notifier.await("pay_3");
+
+        notifier.abandon("pay_3", old);
+        assertThat(notifier.waiting()).isEqualTo(1);
+        notifier.abandon("pay_3", newer);
+        assertThat(notifier.waiting()).isZero();
+    }
+}
@@ -0,0 +1,108 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.config.SettlementProperties;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugins.PluginRegistry;
+import edu.ucsal.fiadopay.plugins.annotations.PaymentMethod;
+import edu.ucsal.fiadopay.plugins.spi.SettlementModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SettlementSimulatorTest {
+
+    private static final SettlementProperties.Method CARD = new SettlementProperties.Method(
+            new SettlementProperties.Latency(SettlementProperties.Kind.LOGNORMAL, null, null, null, 1500.0, 0.5, null, null),
+            0.15,
+            List.of(new SettlementProperties.AmountBand(new BigDecimal("5000.00"), 0.40)),
+            Map.of(7L, 0.9));
+    private static final SettlementProperties.Method PIX = new SettlementProperties.Method(
+            new SettlementProperties.Latency(SettlementProperties.Kind.UNIFORM, null, 50L, 400L, null, null, null, null),
+            0.05, null, null);
+
+    private static SettlementSimulator simulator(long seed, Object... beans) {
+        var factory = new StaticListableBeanFactory();
+        for (Object b : beans) factory.addBean(b.getClass().getName(), b);
+        return new SettlementSimulator(new SettlementProperties(seed, Map.of("CARD", CARD, "pix", PIX)),
+                new PluginRegistry(factory), 1500, 0.15);
+    }
+
+    private static List<Payment> payments() {
+        return IntStream.range(0, 2000).mapToObj(i -> Payment.builder()
+                .id("pay_" + i)
+                .merchantId((long) (i % 10))
+                .method(i % 3 == 0 ? "PIX" : i % 3 == 1 ? "CARD" : "DEBIT")
+                .amountMinor(1_000L + i * 517L)
+                .idempotencyKey(i % 4 == 0 ? null : "key-" + i)
+                .build()).toList();
+    }
+
+    private static Map<String, SettlementModel.Outcome> run(SettlementSimulator sim, List<Payment> payments, boolean parallel) {
+        Map<String, SettlementModel.Outcome> out = new ConcurrentHashMap<>();
+        (parallel ? payments.parallelStream() : payments.stream()).forEach(p -> out.put(p.getId(), sim.decide(p)));
+        return out;
+    }
+
+    // Mesma seed e mesmas chaves: mesmos resultados e latências, qualquer que seja a ordem e a thread
+    @Test
+    void sameSeedAndKeysReproduceOutcomesAndLatencies() {
+        List<Payment> payments = payments();
+        List<Payment> shuffled = new ArrayList<>(payments);
+        Collections.shuffle(shuffled, new Random(1));
+
+        var first = run(simulator(42), payments, false);
+        var second = run(simulator(42), shuffled, true);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first.values()).extracting(SettlementModel.Outcome::approved).contains(true, false);
+        assertThat(first.values().stream().mapToLong(SettlementModel.Outcome::delayMs).distinct().count()).isGreaterThan(100);
+    }
+
+    @Test
+    void differentSeedChangesTheRun() {
+        List<Payment> payments = payments();
+        assertThat(run(simulator(43), payments, false)).isNotEqualTo(run(simulator(42), payments, false));
+    }
+
+    @Test
+    void configuredModelsApplyPerMethodWithFallback() {
+        var sim = simulator(42);
+        for (Payment p : payments()) {
+            long delay = sim.decide(p).delayMs();
+            switch (p.getMethod()) {
+                case "PIX" -> assertThat(delay).isBetween(50L, 400L);
+                case "DEBIT" -> assertThat(delay).isEqualTo(1500L); // sem configuração: processing-delay-ms fixo
+                default -> assertThat(delay).isPositive();
+            }
+        }
+    }
+
+    @Test
+    void settlementModelBeanFromThePluginRegistryReplacesTheConfiguration() {
+        var sim = simulator(42, new AlwaysDeclinedPix());
+        for (Payment p : payments()) {
+            if (p.getMethod().equals("PIX")) {
+                assertThat(sim.decide(p)).isEqualTo(new SettlementModel.Outcome(7, false));
+            }
+        }
+    }
+
+    @PaymentMethod("PIX")
+    static class AlwaysDeclinedPix implements SettlementModel {
+        @Override
+        public Outcome decide(Payment payment, SplittableRandom random) {
+            return new Outcome(7, false);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package edu.ucsal.fiadopay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedPaymentIdGeneratorTest {
+
+    private static final long T0 = Instant.parse("2026-01-10T12:00:00Z").toEpochMilli();
+    private static final long EPOCH_MS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final String ALPHABET = "0123456789abcdefghjkmnpqrstvwxyz";
+
+    private static long decode(String id) {
+        long v = 0;
+        for (char c : id.substring("pay_".length()).toCharArray()) v = (v << 5) | ALPHABET.indexOf(c);
+        return v;
+    }
+
+    private static long millis(String id) {
+        return (decode(id) >>> 22) + EPOCH_MS;
+    }
+
+    private static long node(String id) {
+        return (decode(id) >>> 12) & 1023;
+    }
+
+    @Test
+    void encodesTimeNodeAndSequenceInFixedWidth() {
+        var ids = new TimeOrderedPaymentIdGenerator(517, () -> T0);
+        String a = ids.nextId();
+        String b = ids.nextId();
+        assertThat(a).matches("pay_[0-9a-hjkmnp-tv-z]{13}");
+        assertThat(millis(a)).isEqualTo(T0);
+        assertThat(node(a)).isEqualTo(517);
+        assertThat(decode(b) - decode(a)).isEqualTo(1);
+    }
+
+    // Ids de várias threads são todos distintos e, em cada thread, saem em ordem crescente (também como texto)
+    @Test
+    void uniqueAndMonotonicAcrossThreads() throws Exception {
+        var ids = new TimeOrderedPaymentIdGenerator(3);
+        int threads = 8, perThread = 50_000;
+        var start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<String>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    List<String> out = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) out.add(ids.nextId());
+                    return out;
+                }));
+            }
+            start.countDown();
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> f : results) {
+                List<String> out = f.get(30, TimeUnit.SECONDS);
+                assertThat(out).isSortedAccordingTo(String::compareTo);
+                all.addAll(out);
+            }
+            assertThat(all).hasSize(threads * perThread);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Relógio voltando: os ids continuam crescendo sobre o último milissegundo lógico, até o relógio alcançá-lo
+    @Test
+    void clockRollbackKeepsIdsIncreasing() {
+        var clock = new AtomicLong(T0);
+        var ids = new TimeOrderedPaymentIdGenerator(1, clock::get);
+        String before = ids.nextId();
+
+        clock.set(T0 - 5_000);
+        String during = ids.nextId();
+        assertThat(during).isGreaterThan(before);
+        assertThat(millis(during)).isEqualTo(T0);
+
+        clock.set(T0 + 1);
+        String after = ids.nextId();
+        assertThat(after).isGreaterThan(during);
+        assertThat(millis(after)).isEqualTo(T0 + 1);
+    }
+
+    // Mais de 4096 ids no mesmo milissegundo: a sequência estoura para o milissegundo seguinte sem repetir
+    @Test
+    void sequenceOverflowBorrowsTheNextMillisecond() {
+        var ids = new TimeOrderedPaymentIdGenerator(1, () -> T0);
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < 4096 * 2 + 10; i++) out.add(ids.nextId());
+
+        assertThat(out).doesNotHaveDuplicates().isSortedAccordingTo(String::compareTo);
+        assertThat(millis(out.get(4095))).isEqualTo(T0);
+        assertThat(millis(out.get(4096))).isEqualTo(T0 + 1);
+        assertThat(millis(out.get(out.size() - 1))).isEqualTo(T0 + 2);
+    }
+
+    @Test
+    void nodeIdMustBeConfiguredWhenRequired() {
+        assertThatThrownBy(() -> new TimeOrderedPaymentIdGenerator(-1, true)).isInstanceOf(IllegalStateException.class);
+        assertThat(node(new TimeOrderedPaymentIdGenerator(7, true).nextId())).isEqualTo(7);
+        assertThat(node(new TimeOrderedPaymentIdGenerator(-1, false).nextId())).isBetween(0L, 1023L);
+        assertThatThrownBy(() -> new TimeOrderedPaymentIdGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
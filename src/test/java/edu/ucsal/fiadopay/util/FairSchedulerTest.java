@@ -0,0 +1,130 @@
+package edu.ucsal.fiadopay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FairSchedulerTest {
+
+    // Executor que só guarda as tarefas; o teste decide quando cada uma roda
+    private final List<Runnable> started = new ArrayList<>();
+    private final FairScheduler lanes = new FairScheduler("test", started::add, 1, 1, 1, k -> 1, k -> 1);
+
+    @Test
+    void reservationHoldsQueueSlotUntilSubmittedOrCancelled() {
+        List<String> ran = new ArrayList<>();
+        lanes.submit(7, () -> ran.add("t0")); // ocupa a única permissão; a fila fica vazia
+
+        var slot = lanes.reserve(7);
+        assertThatThrownBy(() -> lanes.submit(7, () -> ran.add("x"))).isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> lanes.reserve(7)).isInstanceOf(RejectedExecutionException.class);
+        lanes.submit(8, () -> ran.add("other")); // outra chave não é afetada
+
+        slot.cancel();
+        assertThatThrownBy(slot::cancel).isInstanceOf(IllegalStateException.class);
+        var again = lanes.reserve(7);
+        again.submit(() -> ran.add("t1"));
+        assertThat(lanes.queued(7)).isEqualTo(1);
+
+        while (!started.isEmpty()) started.remove(0).run();
+        assertThat(ran).containsExactly("t0", "other", "t1");
+        assertThat(lanes.queued(7)).isZero();
+    }
+
+    // Roda as tarefas guardadas uma a uma, na ordem em que o escalonador as liberou
+    private void drain() {
+        while (!started.isEmpty()) started.remove(0).run();
+    }
+
+    @Test
+    void backloggedKeysAreServedInProportionToTheirWeight() {
+        var weighted = new FairScheduler("test", started::add, 1, 100, 1, k -> k == 1 ? 3 : 1, k -> 10);
+        List<Long> order = new ArrayList<>();
+        weighted.submit(0, () -> { }); // ocupa a única permissão enquanto as filas enchem
+        for (int i = 0; i < 6; i++) {
+            weighted.submit(1, () -> order.add(1L));
+            weighted.submit(2, () -> order.add(2L));
+        }
+        drain();
+        // Enquanto as duas têm fila, 3 de uma para 1 da outra; depois a que sobrou segue sozinha
+        assertThat(order).containsExactly(1L, 1L, 1L, 2L, 1L, 1L, 1L, 2L, 2L, 2L, 2L, 2L);
+    }
+
+    @Test
+    void floodedKeyDoesNotStarveALateArrival() {
+        var fair = new FairScheduler("test", started::add, 1, 1000, 1, k -> 1, k -> 10);
+        List<Long> order = new ArrayList<>();
+        for (int i = 0; i < 500; i++) fair.submit(1, () -> order.add(1L));
+        for (int i = 0; i < 10; i++) started.remove(0).run();
+
+        fair.submit(2, () -> order.add(2L));
+        int before = order.size();
+        drain();
+        // Pesos iguais: antes da recém-chegada só a tarefa que já estava no executor e uma vez da chave
+        // inundada, não as 489 que ainda estão na fila dela
+        assertThat(order.subList(before, order.size()).indexOf(2L)).isEqualTo(2);
+        assertThat(order).hasSize(501);
+    }
+
+    @Test
+    void fullQueueRejectsOnlyItsOwnKey() {
+        var small = new FairScheduler("test", started::add, 1, 3, 1, k -> 1, k -> 1);
+        List<String> ran = new ArrayList<>();
+        small.submit(1, () -> ran.add("running"));
+        for (int i = 0; i < 3; i++) small.submit(1, () -> ran.add("queued"));
+        assertThat(small.queued(1)).isEqualTo(3);
+        assertThatThrownBy(() -> small.submit(1, () -> ran.add("rejected"))).isInstanceOf(RejectedExecutionException.class);
+        small.submit(2, () -> ran.add("other"));
+
+        started.remove(0).run(); // a que estava rodando termina e libera uma vaga da fila
+        small.submit(1, () -> ran.add("late"));
+        drain();
+        assertThat(ran).doesNotContain("rejected").contains("other", "late").hasSize(6);
+        assertThat(small.queued(1)).isZero();
+    }
+
+    @Test
+    void perKeyConcurrencyNeverExceedsTheCap() throws Exception {
+        int threads = 8, cap = 2, perKey = 200;
+        var pool = Executors.newFixedThreadPool(threads);
+        var lanes = new FairScheduler("test", pool, threads, perKey, 1, k -> 1, k -> k == 3 ? threads : cap);
+        Map<Long, AtomicInteger> running = new ConcurrentHashMap<>();
+        Map<Long, AtomicInteger> peak = new ConcurrentHashMap<>();
+        var done = new CountDownLatch(3 * perKey);
+        for (int i = 0; i < perKey; i++) {
+            for (long key = 1; key <= 3; key++) {
+                long k = key;
+                lanes.submit(k, () -> {
+                    int now = running.computeIfAbsent(k, x -> new AtomicInteger()).incrementAndGet();
+                    peak.computeIfAbsent(k, x -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        running.get(k).decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        pool.shutdown();
+
+        assertThat(peak.get(1L).get()).isLessThanOrEqualTo(cap);
+        assertThat(peak.get(2L).get()).isLessThanOrEqualTo(cap);
+        // A chave sem teto apertado usa as threads que as outras deixam livres
+        assertThat(peak.get(3L).get()).isGreaterThan(cap);
+    }
+}
@@ -0,0 +1,108 @@
+package edu.ucsal.fiadopay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertThat(new RingBuffer<>(2).capacity()).isEqualTo(2);
+        assertThat(new RingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new RingBuffer<>(1024).capacity()).isEqualTo(1024);
+        assertThatThrownBy(() -> new RingBuffer<>(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RingBuffer<>((1 << 30) + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void isFifoAndRefusesWhenFull() {
+        var ring = new RingBuffer<Integer>(4);
+        for (int i = 0; i < 4; i++) assertThat(ring.offer(i)).isTrue();
+        assertThat(ring.offer(4)).isFalse();
+        assertThat(ring.size()).isEqualTo(4);
+
+        assertThat(ring.poll()).isZero();
+        assertThat(ring.offer(4)).isTrue(); // dá a volta no array
+        List<Integer> out = new ArrayList<>();
+        assertThat(ring.drain(out::add, 10)).isEqualTo(4);
+        assertThat(out).containsExactly(1, 2, 3, 4);
+        assertThat(ring.poll()).isNull();
+        assertThat(ring.size()).isZero();
+    }
+
+    @Test
+    void drainStopsAtMax() {
+        var ring = new RingBuffer<Integer>(8);
+        for (int i = 0; i < 5; i++) ring.offer(i);
+        List<Integer> out = new ArrayList<>();
+        assertThat(ring.drain(out::add, 3)).isEqualTo(3);
+        assertThat(out).containsExactly(0, 1, 2);
+        assertThat(ring.size()).isEqualTo(2);
+    }
+
+    // Vários produtores e consumidores numa fila pequena (muitas voltas e muitas rejeições por fila cheia):
+    // cada item sai exatamente uma vez, e na ordem em que o seu produtor o colocou.
+    // yield em vez de spin: com poucos núcleos, quem está no meio de um slot precisa ganhar a CPU
+    @Test
+    void everyItemIsConsumedExactlyOnceUnderContention() throws Exception {
+        int producers = 4, consumers = 4, perProducer = 20_000;
+        var ring = new RingBuffer<Long>(64);
+        var seen = new ConcurrentLinkedQueue<Long>();
+        var consumed = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long base = (long) p << 32;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!ring.offer(base | i)) Thread.yield();
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumers; c++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    long[] last = {-1, -1, -1, -1};
+                    while (consumed.get() < producers * perProducer) {
+                        Long v = ring.poll();
+                        if (v == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        int p = (int) (v >>> 32);
+                        long seq = v & 0xffffffffL;
+                        // Um mesmo consumidor nunca vê um produtor andar para trás
+                        assertThat(seq).isGreaterThan(last[p]);
+                        last[p] = seq;
+                        seen.add(v);
+                        consumed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> t : tasks) t.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(seen).hasSize(producers * perProducer).doesNotHaveDuplicates();
+        assertThat(ring.poll()).isNull();
+    }
+}
@@ -0,0 +1,102 @@
+package edu.ucsal.fiadopay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlidingWindowCounterTest {
+
+    // Janela de 60 s em 12 baldes de 5 s; o relógio só anda quando o teste manda
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SlidingWindowCounter<String> counter = new SlidingWindowCounter<>(Duration.ofSeconds(60), 12, 100, now::get);
+
+    private void advance(long millis) {
+        now.addAndGet(millis);
+    }
+
+    @Test
+    void eventsLeaveTheWindowOneBucketAtATime() {
+        // 1_000_000 é início de balde: o primeiro evento sai exatamente 60 s depois
+        counter.add("m", 100);
+        advance(5_000);
+        counter.add("m", 20);
+        assertThat(counter.totals("m")).isEqualTo(new SlidingWindowCounter.Totals(2, 120));
+
+        advance(54_999); // 59,999 s depois do primeiro: ainda dentro
+        assertThat(counter.totals("m")).isEqualTo(new SlidingWindowCounter.Totals(2, 120));
+        advance(1);      // 60 s: o balde do primeiro evento saiu
+        assertThat(counter.totals("m")).isEqualTo(new SlidingWindowCounter.Totals(1, 20));
+        advance(5_000);
+        assertThat(counter.totals("m")).isEqualTo(new SlidingWindowCounter.Totals(0, 0));
+    }
+
+    @Test
+    void reusedBucketStartsFromZeroInsteadOfAccumulating() {
+        for (int i = 0; i < 5; i++) counter.add("m", 10);
+        advance(60_000); // mesmo índice de balde, uma volta depois
+        var totals = counter.add("m", 7);
+        assertThat(totals).isEqualTo(new SlidingWindowCounter.Totals(1, 7));
+
+        // Volta longa sem eventos (mais de uma janela) não ressuscita baldes antigos
+        advance(10 * 60_000 + 5_000);
+        assertThat(counter.add("m", 1)).isEqualTo(new SlidingWindowCounter.Totals(1, 1));
+    }
+
+    @Test
+    void addReturnsTotalsIncludingTheEventAndKeysAreIndependent() {
+        assertThat(counter.add("a", 50)).isEqualTo(new SlidingWindowCounter.Totals(1, 50));
+        assertThat(counter.add("a", 25)).isEqualTo(new SlidingWindowCounter.Totals(2, 75));
+        assertThat(counter.add("b", 1)).isEqualTo(new SlidingWindowCounter.Totals(1, 1));
+        assertThat(counter.totals("c")).isEqualTo(new SlidingWindowCounter.Totals(0, 0));
+        assertThatThrownBy(() -> counter.add("a", -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void evictsIdleKeysFirstWhenOverMaxKeys() {
+        var small = new SlidingWindowCounter<Integer>(Duration.ofSeconds(60), 12, 10, now::get);
+        for (int k = 0; k < 10; k++) small.add(k, 1);
+        advance(60_000);
+        small.add(100, 1); // passa de maxKeys: as 10 antigas estão fora da janela e saem
+        assertThat(small.size()).isEqualTo(1);
+        assertThat(small.totals(100)).isEqualTo(new SlidingWindowCounter.Totals(1, 1));
+
+        for (int k = 0; k < 20; k++) small.add(k, 1); // todas ativas: sai o excedente mais uma folga
+        assertThat(small.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        int threads = 8, perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            done.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    counter.add("hot", 3);
+                    // no meio da carga o relógio passa para o balde seguinte, com threads ainda gravando no anterior
+                    if (i == perThread / 2) now.compareAndSet(1_000_000, 1_005_000);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var f : done) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        long n = (long) threads * perThread;
+        assertThat(counter.totals("hot")).isEqualTo(new SlidingWindowCounter.Totals(n, 3 * n));
+    }
+}